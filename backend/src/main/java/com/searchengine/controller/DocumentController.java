@@ -1,20 +1,27 @@
 package com.searchengine.controller;
 
 import com.searchengine.model.Document;
+import com.searchengine.model.WatchRoot;
+import com.searchengine.service.BulkIndexResult;
+import com.searchengine.service.BulkIndexingService;
+import com.searchengine.service.DirectoryIngestionService;
+import com.searchengine.service.DirectoryWatchService;
 import com.searchengine.service.DocumentIndexingService;
-import org.apache.tika.exception.TikaException;
+import com.searchengine.service.IndexingJobService;
+import com.searchengine.service.JobProgress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/documents")
@@ -26,6 +33,18 @@ public class DocumentController {
     @Autowired
     private DocumentIndexingService documentIndexingService;
     
+    @Autowired
+    private DirectoryIngestionService directoryIngestionService;
+    
+    @Autowired
+    private IndexingJobService indexingJobService;
+    
+    @Autowired
+    private DirectoryWatchService directoryWatchService;
+    
+    @Autowired
+    private BulkIndexingService bulkIndexingService;
+    
     @PostMapping
     public ResponseEntity<Document> indexDocument(
             @RequestParam("title") String title,
@@ -48,6 +67,30 @@ public class DocumentController {
         }
     }
     
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> bulkIndex(InputStream body) {
+        logger.info("Bulk indexing request");
+        
+        try {
+            BulkIndexResult result = bulkIndexingService.indexNdjson(body);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("created", result.getCreated());
+            response.put("updated", result.getUpdated());
+            response.put("failed", result.getFailed());
+            response.put("failures", result.getFailures());
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (IOException e) {
+            logger.error("Error reading bulk request: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Unexpected error in bulk indexing: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     @PostMapping("/upload")
     public ResponseEntity<Document> uploadFile(
             @RequestParam("file") MultipartFile file,
@@ -64,7 +107,7 @@ public class DocumentController {
             Document document = documentIndexingService.indexFile(file, title, url);
             return ResponseEntity.ok(document);
             
-        } catch (IOException | TikaException e) {
+        } catch (IOException e) {
             logger.error("Error uploading and indexing file: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
         }
@@ -82,7 +125,7 @@ public class DocumentController {
             Document document = documentIndexingService.indexFileFromPath(filePath, title, url);
             return ResponseEntity.ok(document);
             
-        } catch (IOException | TikaException e) {
+        } catch (IOException e) {
             logger.error("Error indexing file from path: {}", e.getMessage(), e);
             return ResponseEntity.badRequest().body(null);
         } catch (Exception e) {
@@ -94,22 +137,25 @@ public class DocumentController {
     @PostMapping("/index-directory")
     public ResponseEntity<Map<String, Object>> indexDirectory(
             @RequestParam("path") String directoryPath,
-            @RequestParam(value = "recursive", defaultValue = "false") boolean recursive) {
+            @RequestParam(value = "recursive", defaultValue = "false") boolean recursive,
+            @RequestParam(value = "sync", defaultValue = "false") boolean sync) {
         
-        logger.info("Directory indexing request - Path: '{}', Recursive: {}", directoryPath, recursive);
+        logger.info("Directory indexing request - Path: '{}', Recursive: {}, Sync: {}", directoryPath, recursive, sync);
         
         try {
-            documentIndexingService.indexDirectory(directoryPath, recursive);
+            JobProgress job = directoryIngestionService.startDirectoryIngestion(directoryPath, recursive, sync);
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Directory indexing started");
+            response.put("jobId", job.getId());
             response.put("path", directoryPath);
             response.put("recursive", recursive);
+            response.put("sync", sync);
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.accepted().body(response);
             
-        } catch (IOException | TikaException e) {
-            logger.error("Error indexing directory: {}", e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            logger.error("Error indexing directory: {}", e.getMessage());
             return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Unexpected error indexing directory: {}", e.getMessage(), e);
@@ -117,6 +163,64 @@ public class DocumentController {
         }
     }
     
+    @PostMapping("/watches")
+    public ResponseEntity<Map<String, Object>> addWatch(
+            @RequestParam("path") String directoryPath,
+            @RequestParam(value = "recursive", defaultValue = "true") boolean recursive) {
+        
+        logger.info("Directory watch request - Path: '{}', Recursive: {}", directoryPath, recursive);
+        
+        try {
+            WatchRoot watch = directoryWatchService.addWatch(directoryPath, recursive);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Directory is being watched");
+            response.put("id", watch.getId());
+            response.put("path", watch.getPath());
+            response.put("recursive", watch.getRecursive());
+            
+            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            
+        } catch (IllegalArgumentException e) {
+            logger.error("Error adding directory watch: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("Unexpected error adding directory watch: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    @GetMapping("/watches")
+    public ResponseEntity<List<WatchRoot>> getWatches() {
+        try {
+            return ResponseEntity.ok(directoryWatchService.getWatches());
+        } catch (Exception e) {
+            logger.error("Error getting directory watches: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
+    @DeleteMapping("/watches/{id}")
+    public ResponseEntity<Map<String, Object>> removeWatch(@PathVariable Long id) {
+        logger.info("Directory watch removal request - ID: {}", id);
+        
+        try {
+            if (!directoryWatchService.removeWatch(id)) {
+                return ResponseEntity.notFound().build();
+            }
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Directory watch removed");
+            response.put("id", id);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("Error removing directory watch: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Document> updateDocument(
             @PathVariable Long id,
@@ -182,15 +286,21 @@ public class DocumentController {
     }
     
     @PostMapping("/reindex")
-    public ResponseEntity<Map<String, Object>> reindexAllDocuments() {
-        logger.info("Reindex all documents request");
+    public ResponseEntity<Map<String, Object>> reindexAllDocuments(
+            @RequestParam(value = "resume", defaultValue = "true") boolean resume) {
+        logger.info("Reindex all documents request - Resume: {}", resume);
         
         try {
-            CompletableFuture<Void> future = documentIndexingService.reindexAllDocuments();
+            // Continue after the checkpoint of an unfinished previous reindex, if there is one
+            long afterId = resume ? indexingJobService.findResumeCheckpoint("REINDEX").orElse(0L) : 0L;
+            JobProgress job = indexingJobService.startJob("REINDEX", afterId > 0 ? "documents after id " + afterId : "documents");
+            documentIndexingService.reindexAllDocuments(job, afterId);
             
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Reindexing started");
             response.put("status", "in-progress");
+            response.put("jobId", job.getId());
+            response.put("resumedAfterId", afterId);
             
             return ResponseEntity.ok(response);
             
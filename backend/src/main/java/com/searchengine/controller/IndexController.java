@@ -0,0 +1,123 @@
+package com.searchengine.controller;
+
+import com.searchengine.service.DocumentIndexingService;
+import com.searchengine.service.IndexingJobService;
+import com.searchengine.service.IndexOutboxService;
+import com.searchengine.service.JobProgress;
+import com.searchengine.service.LuceneSearchService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/index")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class IndexController {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexController.class);
+
+    @Autowired
+    private LuceneSearchService luceneSearchService;
+
+    @Autowired
+    private DocumentIndexingService documentIndexingService;
+
+    @Autowired
+    private IndexingJobService indexingJobService;
+
+    @Autowired
+    private IndexOutboxService indexOutboxService;
+
+    @PostMapping("/flush")
+    public ResponseEntity<Map<String, Object>> flush() {
+        logger.info("Index flush request");
+
+        try {
+            long startTime = System.currentTimeMillis();
+            long committed = luceneSearchService.flush();
+
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Index flushed");
+            response.put("committedOperations", committed);
+            response.put("flushTimeMs", System.currentTimeMillis() - startTime);
+
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            logger.error("Error flushing index: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getIndexStats() {
+        try {
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("documentCount", luceneSearchService.getIndexSize());
+            stats.put("pendingOperations", luceneSearchService.getPendingOperations());
+            stats.put("outboxPending", indexOutboxService.getPendingEntries());
+            stats.put("activeIndex", luceneSearchService.getActiveIndexPath());
+            stats.put("previousIndex", luceneSearchService.getPreviousIndexPath());
+            stats.put("rebuildRunning", luceneSearchService.isRebuildRunning());
+
+            return ResponseEntity.ok(stats);
+
+        } catch (Exception e) {
+            logger.error("Error getting index stats: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuild() {
+        logger.info("Index rebuild request");
+
+        Map<String, Object> response = new HashMap<>();
+        if (luceneSearchService.isRebuildRunning()) {
+            response.put("message", "An index rebuild is already running");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+
+        try {
+            JobProgress job = indexingJobService.startJob("REBUILD", "documents");
+            documentIndexingService.rebuildIndex(job);
+
+            response.put("message", "Index rebuild started");
+            response.put("jobId", job.getId());
+
+            return ResponseEntity.accepted().body(response);
+
+        } catch (Exception e) {
+            logger.error("Error starting index rebuild: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @PostMapping("/rollback")
+    public ResponseEntity<Map<String, Object>> rollback() {
+        logger.info("Index rollback request");
+
+        Map<String, Object> response = new HashMap<>();
+        try {
+            luceneSearchService.rollbackIndex();
+
+            response.put("message", "Rolled back to the previous index");
+            response.put("activeIndex", luceneSearchService.getActiveIndexPath());
+
+            return ResponseEntity.ok(response);
+
+        } catch (IllegalStateException e) {
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        } catch (Exception e) {
+            logger.error("Error rolling back index: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.searchengine.controller;
+
+import com.searchengine.dto.IndexingJobDto;
+import com.searchengine.service.IndexingJobService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class JobController {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobController.class);
+
+    @Autowired
+    private IndexingJobService indexingJobService;
+
+    @GetMapping
+    public ResponseEntity<List<IndexingJobDto>> getJobs(
+            @RequestParam(value = "limit", defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(indexingJobService.getRecentJobs(Math.min(Math.max(limit, 1), 500)));
+        } catch (Exception e) {
+            logger.error("Error listing jobs: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<IndexingJobDto> getJob(@PathVariable String id) {
+        return indexingJobService.getJob(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/{id}/cancel")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String id) {
+        if (indexingJobService.getJob(id).isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", id);
+        if (!indexingJobService.cancelJob(id)) {
+            response.put("message", "Job is not running");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+
+        response.put("message", "Cancellation requested");
+        return ResponseEntity.accepted().body(response);
+    }
+}
\ No newline at end of file
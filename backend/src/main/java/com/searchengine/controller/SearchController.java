@@ -2,14 +2,18 @@ package com.searchengine.controller;
 
 import com.searchengine.dto.SearchResponseDto;
 import com.searchengine.model.SearchHistory;
+import com.searchengine.service.SearchOptions;
 import com.searchengine.service.SearchService;
+import com.searchengine.service.SearchSort;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/search")
@@ -25,9 +29,22 @@ public class SearchController {
     public ResponseEntity<SearchResponseDto> search(
             @RequestParam("q") String query,
             @RequestParam(value = "page", defaultValue = "0") int page,
-            @RequestParam(value = "size", defaultValue = "10") int pageSize) {
+            @RequestParam(value = "size", defaultValue = "10") int pageSize,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "timeout", required = false) Long timeoutMs,
+            @RequestParam(value = "contentType", required = false) String contentTypes,
+            @RequestParam(value = "createdFrom", required = false) String createdFrom,
+            @RequestParam(value = "createdTo", required = false) String createdTo,
+            @RequestParam(value = "minSize", required = false) Long minSize,
+            @RequestParam(value = "maxSize", required = false) Long maxSize,
+            @RequestParam(value = "facets", defaultValue = "false") boolean facets,
+            @RequestParam(value = "sort", required = false) String sort) {
         
-        logger.info("Search request - Query: '{}', Page: {}, Size: {}", query, page, pageSize);
+        logger.info("Search request - Query: '{}', Page: {}, Size: {}, Cursor: {}, Fields: {}, Timeout: {}, "
+                + "Content types: {}, Created: {} to {}, File size: {} to {}, Facets: {}, Sort: {}",
+                query, page, pageSize, cursor, fields, timeoutMs, contentTypes, createdFrom, createdTo,
+                minSize, maxSize, facets, sort);
         
         try {
             if (query == null || query.trim().isEmpty()) {
@@ -38,9 +55,20 @@ public class SearchController {
                 pageSize = 100; // Limit page size to prevent abuse
             }
             
-            SearchResponseDto response = searchService.search(query.trim(), page, pageSize);
+            SearchOptions options = SearchOptions.defaults()
+                    .setFields(SearchOptions.parseFields(fields))
+                    .setTimeoutMs(timeoutMs)
+                    .setContentTypes(SearchOptions.parseContentTypes(contentTypes))
+                    .setCreatedRange(SearchOptions.parseDateTime(createdFrom), SearchOptions.parseDateTime(createdTo))
+                    .setFileSizeRange(minSize, maxSize)
+                    .setFacets(facets)
+                    .setSort(SearchSort.parse(sort));
+            SearchResponseDto response = searchService.search(query.trim(), page, pageSize, cursor, options);
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            logger.warn("Rejected search request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("Error processing search request: {}", e.getMessage(), e);
             return ResponseEntity.internalServerError().build();
@@ -81,4 +109,17 @@ public class SearchController {
             return ResponseEntity.internalServerError().build();
         }
     }
+    
+    @GetMapping("/stats/latency")
+    public ResponseEntity<Map<String, Object>> getLatencyDistribution(
+            @RequestParam(value = "days", defaultValue = "7") int days,
+            @RequestParam(value = "minutes", required = false) Integer minutes) {
+        try {
+            Duration window = minutes != null ? Duration.ofMinutes(minutes) : Duration.ofDays(days);
+            return ResponseEntity.ok(searchService.getLatencyDistribution(window));
+        } catch (Exception e) {
+            logger.error("Error getting latency distribution: {}", e.getMessage(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,242 @@
+package com.searchengine.dto;
+
+import com.searchengine.model.IndexingJob;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class IndexingJobDto {
+    private String id;
+    private String type;
+    private String source;
+    private IndexingJob.Status status;
+    private Long totalItems;
+    private Long processedItems;
+    private Long failedItems;
+    private Long processedBytes;
+    private Long addedItems;
+    private Long changedItems;
+    private Long unchangedItems;
+    private Long removedItems;
+    private Double docsPerSecond;
+    private Double bytesPerSecond;
+    private Long etaSeconds;
+    private String checkpoint;
+    private String errorMessage;
+    private List<String> errorSamples;
+    private LocalDateTime startedAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+
+    // Constructors
+    public IndexingJobDto() {}
+
+    /**
+     * Builds the API view of a job, deriving throughput from the elapsed time and an ETA from
+     * the remaining items when the total is known.
+     */
+    public static IndexingJobDto from(IndexingJob job) {
+        IndexingJobDto dto = new IndexingJobDto();
+        dto.id = job.getId();
+        dto.type = job.getType();
+        dto.source = job.getSource();
+        dto.status = job.getStatus();
+        dto.totalItems = job.getTotalItems();
+        dto.processedItems = job.getProcessedItems();
+        dto.failedItems = job.getFailedItems();
+        dto.processedBytes = job.getProcessedBytes();
+        dto.addedItems = job.getAddedItems();
+        dto.changedItems = job.getChangedItems();
+        dto.unchangedItems = job.getUnchangedItems();
+        dto.removedItems = job.getRemovedItems();
+        dto.checkpoint = job.getCheckpoint();
+        dto.errorMessage = job.getErrorMessage();
+        dto.errorSamples = job.getErrorSamples() != null
+                ? Arrays.asList(job.getErrorSamples().split("\n")) : Collections.emptyList();
+        dto.startedAt = job.getStartedAt();
+        dto.updatedAt = job.getUpdatedAt();
+        dto.finishedAt = job.getFinishedAt();
+
+        LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+        double elapsedSeconds = Math.max(Duration.between(job.getStartedAt(), end).toMillis(), 1) / 1000.0;
+        dto.docsPerSecond = job.getProcessedItems() / elapsedSeconds;
+        dto.bytesPerSecond = job.getProcessedBytes() / elapsedSeconds;
+        if (job.getStatus() == IndexingJob.Status.RUNNING && job.getTotalItems() != null && dto.docsPerSecond > 0) {
+            long remaining = Math.max(job.getTotalItems() - job.getProcessedItems() - job.getFailedItems(), 0);
+            dto.etaSeconds = (long) Math.ceil(remaining / dto.docsPerSecond);
+        }
+        return dto;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public IndexingJob.Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(IndexingJob.Status status) {
+        this.status = status;
+    }
+
+    public Long getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(Long totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    public Long getProcessedItems() {
+        return processedItems;
+    }
+
+    public void setProcessedItems(Long processedItems) {
+        this.processedItems = processedItems;
+    }
+
+    public Long getFailedItems() {
+        return failedItems;
+    }
+
+    public void setFailedItems(Long failedItems) {
+        this.failedItems = failedItems;
+    }
+
+    public Long getProcessedBytes() {
+        return processedBytes;
+    }
+
+    public void setProcessedBytes(Long processedBytes) {
+        this.processedBytes = processedBytes;
+    }
+
+    public Long getAddedItems() {
+        return addedItems;
+    }
+
+    public void setAddedItems(Long addedItems) {
+        this.addedItems = addedItems;
+    }
+
+    public Long getChangedItems() {
+        return changedItems;
+    }
+
+    public void setChangedItems(Long changedItems) {
+        this.changedItems = changedItems;
+    }
+
+    public Long getUnchangedItems() {
+        return unchangedItems;
+    }
+
+    public void setUnchangedItems(Long unchangedItems) {
+        this.unchangedItems = unchangedItems;
+    }
+
+    public Long getRemovedItems() {
+        return removedItems;
+    }
+
+    public void setRemovedItems(Long removedItems) {
+        this.removedItems = removedItems;
+    }
+
+    public Double getDocsPerSecond() {
+        return docsPerSecond;
+    }
+
+    public void setDocsPerSecond(Double docsPerSecond) {
+        this.docsPerSecond = docsPerSecond;
+    }
+
+    public Double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    public void setBytesPerSecond(Double bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public List<String> getErrorSamples() {
+        return errorSamples;
+    }
+
+    public void setErrorSamples(List<String> errorSamples) {
+        this.errorSamples = errorSamples;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
\ No newline at end of file
@@ -1,15 +1,21 @@
 package com.searchengine.dto;
 
 import java.util.List;
+import java.util.Map;
 
 public class SearchResponseDto {
     private String query;
     private List<SearchResultDto> results;
     private Integer totalResults;
+    // "eq" when totalResults is exact, "gte" when it is a lower bound
+    private String totalResultsRelation = "eq";
     private Integer page;
     private Integer pageSize;
     private Long searchTimeMs;
     private List<String> suggestions;
+    private String nextCursor;
+    private boolean timedOut;
+    private Map<String, Map<String, Long>> facets;
 
     // Constructors
     public SearchResponseDto() {}
@@ -46,6 +52,14 @@ public class SearchResponseDto {
         this.totalResults = totalResults;
     }
 
+    public String getTotalResultsRelation() {
+        return totalResultsRelation;
+    }
+
+    public void setTotalResultsRelation(String totalResultsRelation) {
+        this.totalResultsRelation = totalResultsRelation;
+    }
+
     public Integer getPage() {
         return page;
     }
@@ -77,4 +91,28 @@ public class SearchResponseDto {
     public void setSuggestions(List<String> suggestions) {
         this.suggestions = suggestions;
     }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    public void setTimedOut(boolean timedOut) {
+        this.timedOut = timedOut;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+
+    public void setFacets(Map<String, Map<String, Long>> facets) {
+        this.facets = facets;
+    }
 }
\ No newline at end of file
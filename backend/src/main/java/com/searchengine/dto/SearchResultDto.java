@@ -1,7 +1,11 @@
 package com.searchengine.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.time.LocalDateTime;
 
+// Fields outside the requested projection are left null and omitted from the response
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class SearchResultDto {
     private Long id;
     private String title;
@@ -10,6 +14,9 @@ public class SearchResultDto {
     private String highlightedContent;
     private Double score;
     private LocalDateTime createdAt;
+    private String contentType;
+    private Long fileSize;
+    private LocalDateTime updatedAt;
 
     // Constructors
     public SearchResultDto() {}
@@ -78,4 +85,28 @@ public class SearchResultDto {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public Long getFileSize() {
+        return fileSize;
+    }
+
+    public void setFileSize(Long fileSize) {
+        this.fileSize = fileSize;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
\ No newline at end of file
@@ -8,7 +8,8 @@ import java.util.Objects;
 @Table(name = "documents")
 public class Document {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_seq")
+    @SequenceGenerator(name = "documents_seq", sequenceName = "documents_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -29,6 +30,13 @@ public class Document {
     @Column(name = "file_size")
     private Long fileSize;
 
+    // Last-modified time and SHA-256 of the source file, used to skip unchanged files on sync
+    @Column(name = "file_modified_at")
+    private LocalDateTime fileModifiedAt;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -110,6 +118,22 @@ public class Document {
         this.fileSize = fileSize;
     }
 
+    public LocalDateTime getFileModifiedAt() {
+        return fileModifiedAt;
+    }
+
+    public void setFileModifiedAt(LocalDateTime fileModifiedAt) {
+        this.fileModifiedAt = fileModifiedAt;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,75 @@
+package com.searchengine.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A document change waiting to be applied to the Lucene index. Entries are written in the same
+ * transaction as the document row and deleted once the index commit containing them is durable,
+ * so whatever is left in the table after a crash is exactly what still has to be applied.
+ */
+@Entity
+@Table(name = "index_outbox")
+public class IndexOutboxEntry {
+
+    public enum Operation { ADD, UPDATE, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "index_outbox_seq")
+    @SequenceGenerator(name = "index_outbox_seq", sequenceName = "index_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "document_id", nullable = false)
+    private Long documentId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Operation operation;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public IndexOutboxEntry() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public IndexOutboxEntry(Long documentId, Operation operation) {
+        this();
+        this.documentId = documentId;
+        this.operation = operation;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getDocumentId() {
+        return documentId;
+    }
+
+    public void setDocumentId(Long documentId) {
+        this.documentId = documentId;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(Operation operation) {
+        this.operation = operation;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
\ No newline at end of file
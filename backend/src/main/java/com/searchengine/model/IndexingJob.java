@@ -0,0 +1,221 @@
+package com.searchengine.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Persisted record of a background indexing job. Running jobs are snapshotted periodically,
+ * so the row survives a restart even if the job itself does not.
+ */
+@Entity
+@Table(name = "indexing_jobs",
+       indexes = @Index(name = "idx_indexing_jobs_started_at", columnList = "started_at"))
+public class IndexingJob {
+
+    public enum Status { RUNNING, COMPLETED, FAILED, CANCELLED, INTERRUPTED }
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false, length = 50)
+    private String type;
+
+    @Column(length = 1000)
+    private String source;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+
+    @Column(name = "total_items")
+    private Long totalItems;
+
+    @Column(name = "processed_items", nullable = false)
+    private Long processedItems = 0L;
+
+    @Column(name = "failed_items", nullable = false)
+    private Long failedItems = 0L;
+
+    @Column(name = "processed_bytes", nullable = false)
+    private Long processedBytes = 0L;
+
+    // Outcome of directory syncs: files new to the index, re-extracted, skipped and deleted
+    @Column(name = "added_items", nullable = false)
+    private Long addedItems = 0L;
+
+    @Column(name = "changed_items", nullable = false)
+    private Long changedItems = 0L;
+
+    @Column(name = "unchanged_items", nullable = false)
+    private Long unchangedItems = 0L;
+
+    @Column(name = "removed_items", nullable = false)
+    private Long removedItems = 0L;
+
+    @Column(length = 100)
+    private String checkpoint;
+
+    @Column(name = "error_message", length = 2000)
+    private String errorMessage;
+
+    @Column(name = "error_samples", columnDefinition = "TEXT")
+    private String errorSamples;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    // Constructors
+    public IndexingJob() {}
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Long getTotalItems() {
+        return totalItems;
+    }
+
+    public void setTotalItems(Long totalItems) {
+        this.totalItems = totalItems;
+    }
+
+    public Long getProcessedItems() {
+        return processedItems;
+    }
+
+    public void setProcessedItems(Long processedItems) {
+        this.processedItems = processedItems;
+    }
+
+    public Long getFailedItems() {
+        return failedItems;
+    }
+
+    public void setFailedItems(Long failedItems) {
+        this.failedItems = failedItems;
+    }
+
+    public Long getProcessedBytes() {
+        return processedBytes;
+    }
+
+    public void setProcessedBytes(Long processedBytes) {
+        this.processedBytes = processedBytes;
+    }
+
+    public Long getAddedItems() {
+        return addedItems;
+    }
+
+    public void setAddedItems(Long addedItems) {
+        this.addedItems = addedItems;
+    }
+
+    public Long getChangedItems() {
+        return changedItems;
+    }
+
+    public void setChangedItems(Long changedItems) {
+        this.changedItems = changedItems;
+    }
+
+    public Long getUnchangedItems() {
+        return unchangedItems;
+    }
+
+    public void setUnchangedItems(Long unchangedItems) {
+        this.unchangedItems = unchangedItems;
+    }
+
+    public Long getRemovedItems() {
+        return removedItems;
+    }
+
+    public void setRemovedItems(Long removedItems) {
+        this.removedItems = removedItems;
+    }
+
+    public String getCheckpoint() {
+        return checkpoint;
+    }
+
+    public void setCheckpoint(String checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public String getErrorSamples() {
+        return errorSamples;
+    }
+
+    public void setErrorSamples(String errorSamples) {
+        this.errorSamples = errorSamples;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(LocalDateTime finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
\ No newline at end of file
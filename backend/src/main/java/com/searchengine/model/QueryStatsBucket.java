@@ -0,0 +1,150 @@
+package com.searchengine.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Pre-aggregated search counts and latency distribution for one query within one time bucket.
+ */
+@Entity
+@Table(name = "query_stats_buckets",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"granularity", "bucket_start", "query"}),
+       indexes = @Index(name = "idx_query_stats_buckets_start", columnList = "granularity, bucket_start"))
+public class QueryStatsBucket {
+
+    /** Upper bounds (inclusive) of the latency histogram bins; one extra bin counts everything slower. */
+    public static final long[] LATENCY_BOUNDS_MS = {10, 25, 50, 100, 250, 500, 1000, 2500};
+
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "query_stats_buckets_seq")
+    @SequenceGenerator(name = "query_stats_buckets_seq", sequenceName = "query_stats_buckets_seq", allocationSize = 50)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, length = 1000)
+    private String query;
+
+    @Column(name = "query_count", nullable = false)
+    private Long queryCount = 0L;
+
+    @Column(name = "total_time_ms", nullable = false)
+    private Long totalTimeMs = 0L;
+
+    @Column(name = "max_time_ms", nullable = false)
+    private Long maxTimeMs = 0L;
+
+    @Column(name = "latency_histogram", nullable = false)
+    private long[] latencyHistogram = new long[LATENCY_BOUNDS_MS.length + 1];
+
+    // Constructors
+    public QueryStatsBucket() {}
+
+    public QueryStatsBucket(Granularity granularity, LocalDateTime bucketStart, String query) {
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.query = query;
+    }
+
+    public void record(long searchTimeMs) {
+        queryCount++;
+        totalTimeMs += searchTimeMs;
+        maxTimeMs = Math.max(maxTimeMs, searchTimeMs);
+        latencyHistogram[binFor(searchTimeMs)]++;
+    }
+
+    public static int binFor(long searchTimeMs) {
+        int bin = 0;
+        while (bin < LATENCY_BOUNDS_MS.length && searchTimeMs > LATENCY_BOUNDS_MS[bin]) {
+            bin++;
+        }
+        return bin;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public Long getQueryCount() {
+        return queryCount;
+    }
+
+    public void setQueryCount(Long queryCount) {
+        this.queryCount = queryCount;
+    }
+
+    public Long getTotalTimeMs() {
+        return totalTimeMs;
+    }
+
+    public void setTotalTimeMs(Long totalTimeMs) {
+        this.totalTimeMs = totalTimeMs;
+    }
+
+    public Long getMaxTimeMs() {
+        return maxTimeMs;
+    }
+
+    public void setMaxTimeMs(Long maxTimeMs) {
+        this.maxTimeMs = maxTimeMs;
+    }
+
+    public long[] getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    public void setLatencyHistogram(long[] latencyHistogram) {
+        this.latencyHistogram = latencyHistogram;
+    }
+}
\ No newline at end of file
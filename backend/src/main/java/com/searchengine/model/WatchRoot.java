@@ -0,0 +1,70 @@
+package com.searchengine.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * A directory that is kept in sync with the index by watching it for file changes. Roots are
+ * registered again on startup, so watches survive a restart.
+ */
+@Entity
+@Table(name = "watch_roots")
+public class WatchRoot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, length = 1000)
+    private String path;
+
+    @Column(nullable = false)
+    private Boolean recursive = true;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public WatchRoot() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public WatchRoot(String path, boolean recursive) {
+        this();
+        this.path = path;
+        this.recursive = recursive;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    public Boolean getRecursive() {
+        return recursive;
+    }
+
+    public void setRecursive(Boolean recursive) {
+        this.recursive = recursive;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
\ No newline at end of file
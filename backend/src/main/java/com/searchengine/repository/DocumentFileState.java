@@ -0,0 +1,19 @@
+package com.searchengine.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns a directory sync compares against a file, without loading the document content.
+ */
+public interface DocumentFileState {
+
+    Long getId();
+
+    String getUrl();
+
+    Long getFileSize();
+
+    LocalDateTime getFileModifiedAt();
+
+    String getContentHash();
+}
\ No newline at end of file
@@ -4,11 +4,14 @@ import com.searchengine.model.Document;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,8 +20,19 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     
     Optional<Document> findByUrl(String url);
     
+    List<Document> findByUrlIn(Collection<String> urls);
+    
     List<Document> findByIsIndexed(Boolean isIndexed);
     
+    List<Document> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    List<DocumentFileState> findFileStatesByUrlIn(Collection<String> urls);
+    
+    List<DocumentFileState> findFileStatesByUrlStartingWithAndIdGreaterThanOrderByIdAsc(
+            String urlPrefix, Long afterId, Pageable pageable);
+    
+    long countByIdGreaterThan(Long afterId);
+    
     Page<Document> findByTitleContainingIgnoreCaseOrContentContainingIgnoreCase(
             String title, String content, Pageable pageable);
     
@@ -30,9 +44,27 @@ public interface DocumentRepository extends JpaRepository<Document, Long> {
     @Query("SELECT d FROM Document d WHERE d.createdAt >= :startDate")
     List<Document> findByCreatedAtAfter(@Param("startDate") LocalDateTime startDate);
     
+    @Query("SELECT d.id FROM Document d WHERE d.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+    
     @Query("SELECT COUNT(d) FROM Document d WHERE d.isIndexed = true")
     Long countIndexedDocuments();
     
     @Query("SELECT d.contentType, COUNT(d) FROM Document d GROUP BY d.contentType")
     List<Object[]> countDocumentsByContentType();
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Document d SET d.isIndexed = true, d.indexedAt = :indexedAt WHERE d.id IN :ids")
+    int markIndexed(@Param("ids") Collection<Long> ids, @Param("indexedAt") LocalDateTime indexedAt);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Document d SET d.fileModifiedAt = :fileModifiedAt WHERE d.id = :id")
+    int updateFileModifiedAt(@Param("id") Long id, @Param("fileModifiedAt") LocalDateTime fileModifiedAt);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Document d SET d.isIndexed = false WHERE d.id IN :ids")
+    int markNotIndexed(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.searchengine.repository;
+
+import com.searchengine.model.IndexOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface IndexOutboxRepository extends JpaRepository<IndexOutboxEntry, Long> {
+    
+    List<IndexOutboxEntry> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+    
+    @Query("SELECT MAX(e.id) FROM IndexOutboxEntry e")
+    Long findMaxId();
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.searchengine.repository;
+
+import com.searchengine.model.IndexingJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IndexingJobRepository extends JpaRepository<IndexingJob, String> {
+    
+    List<IndexingJob> findAllByOrderByStartedAtDesc(Pageable pageable);
+    
+    Optional<IndexingJob> findFirstByTypeOrderByStartedAtDesc(String type);
+    
+    List<IndexingJob> findByTypeAndStatusNotOrderByStartedAtDesc(String type, IndexingJob.Status status, Pageable pageable);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM IndexingJob j WHERE j.type = :type AND j.status <> :running AND j.id NOT IN :kept")
+    int deleteFinishedExcept(@Param("type") String type, @Param("running") IndexingJob.Status running,
+                             @Param("kept") Collection<String> kept);
+    
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE IndexingJob j SET j.status = :newStatus, j.finishedAt = :finishedAt WHERE j.status = :oldStatus")
+    int updateStatus(@Param("oldStatus") IndexingJob.Status oldStatus, @Param("newStatus") IndexingJob.Status newStatus,
+                     @Param("finishedAt") LocalDateTime finishedAt);
+}
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.searchengine.repository;
+
+import com.searchengine.model.QueryStatsBucket;
+import com.searchengine.model.QueryStatsBucket.Granularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface QueryStatsBucketRepository extends JpaRepository<QueryStatsBucket, Long> {
+    
+    List<QueryStatsBucket> findByGranularityAndBucketStartAndQueryIn(
+            Granularity granularity, LocalDateTime bucketStart, Collection<String> queries);
+    
+    List<QueryStatsBucket> findByGranularityAndBucketStartGreaterThanEqual(
+            Granularity granularity, LocalDateTime startDate);
+    
+    @Query("SELECT b.query, SUM(b.queryCount) as frequency FROM QueryStatsBucket b " +
+           "WHERE b.granularity = :granularity AND b.bucketStart >= :startDate " +
+           "GROUP BY b.query ORDER BY frequency DESC")
+    List<Object[]> findTopQueriesByFrequency(@Param("granularity") Granularity granularity,
+                                             @Param("startDate") LocalDateTime startDate);
+    
+    @Query("SELECT SUM(b.totalTimeMs) * 1.0 / SUM(b.queryCount) FROM QueryStatsBucket b " +
+           "WHERE b.granularity = :granularity AND b.bucketStart >= :startDate")
+    Double getAverageSearchTime(@Param("granularity") Granularity granularity,
+                                @Param("startDate") LocalDateTime startDate);
+    
+    @Modifying
+    @Query("DELETE FROM QueryStatsBucket b WHERE b.granularity = :granularity AND b.bucketStart < :cutoff")
+    int deleteOlderThan(@Param("granularity") Granularity granularity, @Param("cutoff") LocalDateTime cutoff);
+}
\ No newline at end of file
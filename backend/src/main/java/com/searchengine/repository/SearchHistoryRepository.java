@@ -4,6 +4,7 @@ import com.searchengine.model.SearchHistory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -28,4 +29,8 @@ public interface SearchHistoryRepository extends JpaRepository<SearchHistory, Lo
     
     @Query("SELECT AVG(s.searchTimeMs) FROM SearchHistory s WHERE s.createdAt >= :startDate")
     Double getAverageSearchTime(@Param("startDate") LocalDateTime startDate);
+    
+    @Modifying
+    @Query("DELETE FROM SearchHistory s WHERE s.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
 }
\ No newline at end of file
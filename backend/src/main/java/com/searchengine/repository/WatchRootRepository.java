@@ -0,0 +1,13 @@
+package com.searchengine.repository;
+
+import com.searchengine.model.WatchRoot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface WatchRootRepository extends JpaRepository<WatchRoot, Long> {
+    
+    Optional<WatchRoot> findByPath(String path);
+}
\ No newline at end of file
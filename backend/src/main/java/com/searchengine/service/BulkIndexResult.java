@@ -0,0 +1,56 @@
+package com.searchengine.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a bulk request: totals plus the first failed lines, in input order. Only up to
+ * {@code maxFailures} failures are kept, so the result stays small however long the stream is.
+ */
+public class BulkIndexResult {
+    private final int maxFailures;
+    private int created;
+    private int updated;
+    private int failed;
+    private final List<Map<String, Object>> failures = new ArrayList<>();
+
+    BulkIndexResult(int maxFailures) {
+        this.maxFailures = maxFailures;
+    }
+
+    void recordCreated() {
+        created++;
+    }
+
+    void recordUpdated() {
+        updated++;
+    }
+
+    void recordFailed(int line, String error) {
+        failed++;
+        if (failures.size() < maxFailures) {
+            Map<String, Object> failure = new LinkedHashMap<>();
+            failure.put("line", line);
+            failure.put("error", error);
+            failures.add(failure);
+        }
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<Map<String, Object>> getFailures() {
+        return failures;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,195 @@
+package com.searchengine.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.searchengine.model.Document;
+import com.searchengine.model.IndexOutboxEntry;
+import com.searchengine.repository.DocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Indexes documents streamed as NDJSON, one {@code {"title", "content", "url"}} object per line.
+ * Lines are read one at a time and handled in batches of {@code search.bulk.batch-size}: each
+ * batch is written in one transaction with JDBC batching, together with its index outbox
+ * entries. The result keeps totals and at most {@code search.bulk.max-reported-failures} failed
+ * lines, so memory is bounded by the batch size and that cap however long the stream is. The
+ * outbox applies the batch to Lucene after the transaction commits.
+ */
+@Service
+public class BulkIndexingService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BulkIndexingService.class);
+    
+    @Autowired
+    private DocumentRepository documentRepository;
+    
+    @Autowired
+    private IndexOutboxService indexOutboxService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${search.bulk.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${search.bulk.max-reported-failures:100}")
+    private int maxReportedFailures;
+    
+    public BulkIndexResult indexNdjson(InputStream input) throws IOException {
+        BulkIndexResult result = new BulkIndexResult(maxReportedFailures);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        List<BulkRecord> batch = new ArrayList<>(batchSize);
+        int lineNumber = 0;
+        int valid = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            BulkRecord record = parse(line, lineNumber);
+            batch.add(record);
+            if (record.error == null && ++valid >= batchSize) {
+                indexBatch(batch, result);
+                batch.clear();
+                valid = 0;
+            }
+        }
+        if (!batch.isEmpty()) {
+            indexBatch(batch, result);
+        }
+        
+        logger.info("Bulk request finished: {} created, {} updated, {} failed",
+                   result.getCreated(), result.getUpdated(), result.getFailed());
+        return result;
+    }
+    
+    private static class BulkRecord {
+        
+        private final int line;
+        private String title;
+        private String content;
+        private String url;
+        private String error;
+        private boolean created;
+        
+        BulkRecord(int line) {
+            this.line = line;
+        }
+    }
+    
+    private BulkRecord parse(String line, int lineNumber) {
+        BulkRecord record = new BulkRecord(lineNumber);
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            if (!node.isObject()) {
+                record.error = "Expected a JSON object";
+                return record;
+            }
+            record.title = text(node, "title");
+            String content = text(node, "content");
+            record.content = content != null ? content : "";
+            record.url = text(node, "url");
+            if (record.title == null || record.title.isBlank()) {
+                record.error = "Missing title";
+            } else if (record.url == null || record.url.isBlank()) {
+                record.error = "Missing url";
+            } else {
+                record.title = record.title.trim();
+            }
+        } catch (JsonProcessingException e) {
+            record.error = "Invalid JSON: " + e.getOriginalMessage();
+        }
+        return record;
+    }
+    
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value != null && !value.isNull() ? value.asText() : null;
+    }
+    
+    private void indexBatch(List<BulkRecord> batch, BulkIndexResult result) {
+        List<BulkRecord> records = batch.stream().filter(record -> record.error == null).collect(Collectors.toList());
+        String error = null;
+        
+        if (!records.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(records));
+            } catch (Exception e) {
+                logger.error("Error saving bulk batch of {} documents: {}", records.size(), e.getMessage(), e);
+                error = "Failed to save document: " + e.getMessage();
+            }
+        }
+        
+        for (BulkRecord record : batch) {
+            if (record.error != null) {
+                result.recordFailed(record.line, record.error);
+            } else if (error != null) {
+                result.recordFailed(record.line, error);
+            } else if (record.created) {
+                result.recordCreated();
+            } else {
+                result.recordUpdated();
+            }
+        }
+    }
+    
+    /**
+     * Saves the batch in the caller's transaction. Existing rows are loaded with one query and
+     * updated in place; a URL repeated within the batch maps to one row and the last line wins.
+     */
+    private void persist(List<BulkRecord> records) {
+        Map<String, Document> existing = documentRepository.findByUrlIn(
+                records.stream().map(record -> record.url).collect(Collectors.toSet())).stream()
+            .collect(Collectors.toMap(Document::getUrl, Function.identity(), (a, b) -> a));
+        
+        Map<String, Document> documents = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (BulkRecord record : records) {
+            Document document = documents.get(record.url);
+            if (document == null && !existing.containsKey(record.url)) {
+                document = new Document(record.title, record.content, record.url);
+                document.setContentType("text/html");
+                record.created = true;
+            } else {
+                if (document == null) {
+                    document = existing.get(record.url);
+                }
+                document.setTitle(record.title);
+                document.setContent(record.content);
+                document.setUpdatedAt(now);
+                document.setIsIndexed(false);
+            }
+            documents.put(record.url, document);
+        }
+        // Sequence ids are assigned without a round trip per row, so the inserts go out in JDBC batches
+        List<IndexOutboxEntry> entries = new ArrayList<>(documents.size());
+        for (Document document : documentRepository.saveAll(documents.values())) {
+            entries.add(new IndexOutboxEntry(document.getId(), existing.containsKey(document.getUrl())
+                    ? IndexOutboxEntry.Operation.UPDATE : IndexOutboxEntry.Operation.ADD));
+        }
+        indexOutboxService.enqueueAll(entries);
+    }
+}
\ No newline at end of file
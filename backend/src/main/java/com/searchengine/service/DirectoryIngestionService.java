@@ -0,0 +1,490 @@
+package com.searchengine.service;
+
+import com.searchengine.model.Document;
+import com.searchengine.model.IndexOutboxEntry;
+import com.searchengine.repository.DocumentFileState;
+import com.searchengine.repository.DocumentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Indexes a directory tree through a staged pipeline running off the request thread:
+ * discovery, text extraction and batched database writes. Each batch is saved together with its
+ * index outbox entries, and the outbox applies them to Lucene like any other write. Stages are
+ * joined by bounded queues, so a slow stage throttles the ones feeding it.
+ * <p>
+ * In sync mode, files whose size, modification time or content hash match the stored document
+ * are skipped, and documents whose files disappeared from the directory are deleted.
+ */
+@Service
+public class DirectoryIngestionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryIngestionService.class);
+    
+    static final String FILE_URL_PREFIX = "file://";
+    
+    // End-of-stream markers, compared by identity
+    private static final FileCandidate END_OF_FILES = new FileCandidate(Paths.get(""), 0, null);
+    private static final Document END_OF_DOCUMENTS = new Document();
+    
+    // Type of the jobs the directory watcher starts
+    static final String WATCH_JOB_TYPE = "WATCH_SYNC";
+    
+    /** How long a persist worker waits for more documents before writing a partial batch. */
+    private static final long BATCH_LINGER_MS = 200;
+    
+    @Autowired
+    private DocumentRepository documentRepository;
+    
+    @Autowired
+    private IndexingJobService indexingJobService;
+    
+    @Autowired
+    private IndexOutboxService indexOutboxService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${search.ingest.extract-workers:4}")
+    private int extractWorkers;
+    
+    @Value("${search.ingest.persist-workers:1}")
+    private int persistWorkers;
+    
+    @Value("${search.ingest.queue-capacity:1000}")
+    private int queueCapacity;
+    
+    @Value("${search.ingest.batch-size:200}")
+    private int batchSize;
+    
+    @Autowired
+    private TextExtractionService textExtractionService;
+    
+    /**
+     * Validates the directory, starts the pipeline and returns immediately.
+     */
+    public JobProgress startDirectoryIngestion(String directoryPath, boolean recursive, boolean sync) {
+        return startDirectoryIngestion(directoryPath, recursive, sync, sync ? "SYNC_DIRECTORY" : "INDEX_DIRECTORY");
+    }
+    
+    JobProgress startDirectoryIngestion(String directoryPath, boolean recursive, boolean sync, String jobType) {
+        Path root = Paths.get(directoryPath);
+        if (!Files.isDirectory(root)) {
+            throw new IllegalArgumentException("Invalid directory path: " + directoryPath);
+        }
+        
+        JobProgress job = indexingJobService.startJob(jobType, directoryPath);
+        new IngestionPipeline(job, root, recursive, sync, null).start();
+        
+        logger.info("Started directory {} job {} for: {} ({} extract / {} persist workers)",
+                   sync ? "sync" : "ingestion", job.getId(), directoryPath, extractWorkers, persistWorkers);
+        return job;
+    }
+    
+    /**
+     * Syncs an explicit set of changed paths under {@code root}: new and modified files are
+     * indexed, unchanged ones skipped, and documents of paths that no longer exist deleted.
+     */
+    public JobProgress startFileSync(Path root, Collection<Path> changedPaths) {
+        JobProgress job = indexingJobService.startJob(WATCH_JOB_TYPE, root.toString());
+        new IngestionPipeline(job, root, false, true, new ArrayList<>(changedPaths)).start();
+        
+        logger.debug("Started file sync job {} for {} changed paths under {}", job.getId(), changedPaths.size(), root);
+        return job;
+    }
+    
+    static boolean isIndexableFile(Path path) {
+        String fileName = path.getFileName().toString().toLowerCase();
+        return fileName.endsWith(".txt") || fileName.endsWith(".pdf") || 
+               fileName.endsWith(".doc") || fileName.endsWith(".docx") ||
+               fileName.endsWith(".html") || fileName.endsWith(".htm") || fileName.endsWith(".xml") ||
+               fileName.endsWith(".rtf") || fileName.endsWith(".odt");
+    }
+    
+    static String fileUrl(Path path) {
+        return FILE_URL_PREFIX + path.toAbsolutePath();
+    }
+    
+    static LocalDateTime lastModified(Path path) throws IOException {
+        // Millisecond precision survives the round trip through any database timestamp column
+        return LocalDateTime.ofInstant(Files.getLastModifiedTime(path).toInstant().truncatedTo(ChronoUnit.MILLIS),
+                ZoneOffset.UTC);
+    }
+    
+    static String contentHash(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+    
+    private static class FileCandidate {
+        
+        private final Path path;
+        private final long size;
+        private final LocalDateTime modifiedAt;
+        private DocumentFileState existing;
+        
+        FileCandidate(Path path, long size, LocalDateTime modifiedAt) {
+            this.path = path;
+            this.size = size;
+            this.modifiedAt = modifiedAt;
+        }
+        
+        boolean matchesStoredMetadata() {
+            return existing != null && existing.getContentHash() != null
+                    && Objects.equals(existing.getFileSize(), size)
+                    && Objects.equals(existing.getFileModifiedAt(), modifiedAt);
+        }
+    }
+    
+    private class IngestionPipeline {
+        
+        private final JobProgress job;
+        private final Path root;
+        private final boolean recursive;
+        private final boolean sync;
+        // Set when syncing specific paths instead of walking the root
+        private final List<Path> changedPaths;
+        
+        private final BlockingQueue<FileCandidate> files = new ArrayBlockingQueue<>(queueCapacity);
+        // One queue per persist worker; a URL always goes to the same one, so no two workers insert it
+        private final List<BlockingQueue<Document>> extracted = new ArrayList<>(persistWorkers);
+        
+        private final AtomicInteger activeExtractors = new AtomicInteger(extractWorkers);
+        private final AtomicInteger activePersisters = new AtomicInteger(persistWorkers);
+        
+        IngestionPipeline(JobProgress job, Path root, boolean recursive, boolean sync, List<Path> changedPaths) {
+            this.job = job;
+            this.root = root;
+            this.recursive = recursive;
+            this.sync = sync;
+            this.changedPaths = changedPaths;
+            for (int i = 0; i < persistWorkers; i++) {
+                extracted.add(new ArrayBlockingQueue<>(Math.max(1, queueCapacity / persistWorkers)));
+            }
+        }
+        
+        void start() {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ExecutorService executor = Executors.newFixedThreadPool(1 + extractWorkers + persistWorkers,
+                runnable -> {
+                    Thread thread = new Thread(runnable, "SearchEngine-Ingest-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            
+            executor.execute(this::discover);
+            for (int i = 0; i < extractWorkers; i++) {
+                executor.execute(this::extract);
+            }
+            for (BlockingQueue<Document> documents : extracted) {
+                executor.execute(() -> persist(documents));
+            }
+            executor.shutdown();
+        }
+        
+        private void discover() {
+            try (Stream<Path> candidates = changedPaths != null ? changedPaths.stream()
+                    : Files.walk(root, recursive ? Integer.MAX_VALUE : 1)) {
+                List<FileCandidate> pending = new ArrayList<>(batchSize);
+                List<Path> missing = new ArrayList<>();
+                for (Path path : (Iterable<Path>) candidates::iterator) {
+                    if (job.isCancelRequested()) {
+                        break;
+                    }
+                    if (changedPaths != null && isIndexableFile(path) && Files.notExists(path)) {
+                        missing.add(path);
+                    } else if (Files.isRegularFile(path) && isIndexableFile(path)) {
+                        job.recordDiscovered();
+                        try {
+                            pending.add(new FileCandidate(path, Files.size(path), lastModified(path)));
+                        } catch (IOException e) {
+                            job.recordError(path.toString(), e.getMessage());
+                            continue;
+                        }
+                        if (pending.size() >= batchSize) {
+                            dispatch(pending);
+                            pending = new ArrayList<>(batchSize);
+                        }
+                    }
+                }
+                dispatch(pending);
+                job.setTotal(job.getDiscovered());
+                
+                if (sync && !job.isCancelRequested()) {
+                    if (changedPaths != null) {
+                        removeMissingFiles(missing);
+                    } else {
+                        removeDeletedFiles();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.fail("Interrupted during file discovery");
+            } catch (Exception e) {
+                logger.error("Error walking directory {}: {}", root, e.getMessage(), e);
+                job.fail("File discovery failed: " + e.getMessage());
+            } finally {
+                signalEnd(files, END_OF_FILES, extractWorkers);
+            }
+        }
+        
+        /**
+         * Looks up the stored state of a batch of files in one query. In sync mode, files whose
+         * size and modification time still match are skipped without being read.
+         */
+        private void dispatch(List<FileCandidate> batch) throws InterruptedException {
+            if (sync && !batch.isEmpty()) {
+                List<String> urls = batch.stream().map(candidate -> fileUrl(candidate.path)).collect(Collectors.toList());
+                Map<String, DocumentFileState> existing = documentRepository.findFileStatesByUrlIn(urls).stream()
+                    .collect(Collectors.toMap(DocumentFileState::getUrl, Function.identity(), (a, b) -> a));
+                for (FileCandidate candidate : batch) {
+                    candidate.existing = existing.get(fileUrl(candidate.path));
+                }
+            }
+            for (FileCandidate candidate : batch) {
+                if (sync && candidate.matchesStoredMetadata()) {
+                    job.recordUnchanged();
+                } else {
+                    files.put(candidate);
+                }
+            }
+        }
+        
+        /**
+         * Deletes the documents under the root whose files no longer exist, walking their
+         * stored state in id order one page at a time.
+         */
+        private void removeDeletedFiles() {
+            String urlPrefix = fileUrl(root) + root.getFileSystem().getSeparator();
+            long lastId = 0;
+            while (!job.isCancelRequested()) {
+                List<DocumentFileState> page = documentRepository
+                    .findFileStatesByUrlStartingWithAndIdGreaterThanOrderByIdAsc(urlPrefix, lastId,
+                        PageRequest.of(0, batchSize));
+                if (page.isEmpty()) {
+                    break;
+                }
+                lastId = page.get(page.size() - 1).getId();
+                
+                List<Long> removed = new ArrayList<>();
+                for (DocumentFileState state : page) {
+                    if (!Files.exists(Paths.get(state.getUrl().substring(FILE_URL_PREFIX.length())))) {
+                        removed.add(state.getId());
+                    }
+                }
+                deleteDocuments(removed);
+            }
+        }
+        
+        private void removeMissingFiles(List<Path> missing) {
+            if (missing.isEmpty()) {
+                return;
+            }
+            List<String> urls = missing.stream().map(DirectoryIngestionService::fileUrl).collect(Collectors.toList());
+            deleteDocuments(documentRepository.findFileStatesByUrlIn(urls).stream()
+                .map(DocumentFileState::getId).collect(Collectors.toList()));
+        }
+        
+        /**
+         * Deletes the rows and records their outbox entries in one transaction; the index drops
+         * the documents once the outbox applies them, as for any other delete.
+         */
+        private void deleteDocuments(List<Long> ids) {
+            if (ids.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                documentRepository.deleteAllByIdInBatch(ids);
+                indexOutboxService.enqueueAll(ids.stream()
+                    .map(id -> new IndexOutboxEntry(id, IndexOutboxEntry.Operation.DELETE))
+                    .collect(Collectors.toList()));
+            });
+            job.recordRemoved(ids.size());
+        }
+        
+        private void extract() {
+            try {
+                for (FileCandidate file = files.take(); file != END_OF_FILES; file = files.take()) {
+                    // After a cancel, queued files are drained without being processed
+                    if (job.isCancelRequested()) {
+                        continue;
+                    }
+                    try {
+                        String hash = contentHash(file.path);
+                        if (sync && file.existing != null && hash.equals(file.existing.getContentHash())) {
+                            // Touched but not modified: keep the new time so the next sync skips it unread
+                            documentRepository.updateFileModifiedAt(file.existing.getId(), file.modifiedAt);
+                            job.recordUnchanged();
+                            continue;
+                        }
+                        Document document = extractDocument(file, hash);
+                        extracted.get(Math.floorMod(document.getUrl().hashCode(), persistWorkers)).put(document);
+                    } catch (InterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        logger.error("Error extracting file {}: {}", file.path, e.getMessage());
+                        job.recordError(file.path.toString(), e.getMessage());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.fail("Interrupted during text extraction");
+            } finally {
+                if (activeExtractors.decrementAndGet() == 0) {
+                    for (BlockingQueue<Document> documents : extracted) {
+                        signalEnd(documents, END_OF_DOCUMENTS, 1);
+                    }
+                }
+            }
+        }
+        
+        private void persist(BlockingQueue<Document> documents) {
+            try {
+                List<Document> batch = new ArrayList<>(batchSize);
+                while (true) {
+                    Document document = documents.poll(BATCH_LINGER_MS, TimeUnit.MILLISECONDS);
+                    if (document == END_OF_DOCUMENTS) {
+                        break;
+                    }
+                    if (document != null) {
+                        batch.add(document);
+                    }
+                    // Write full batches, and partial ones whenever extraction falls behind
+                    if (batch.size() >= batchSize || (document == null && !batch.isEmpty())) {
+                        persistBatch(batch);
+                        batch = new ArrayList<>(batchSize);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    persistBatch(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.fail("Interrupted while saving documents");
+            } finally {
+                if (activePersisters.decrementAndGet() == 0) {
+                    indexingJobService.finishJob(job);
+                    logger.info("Directory ingestion job {} finished ({}): {} indexed, {} failed of {} files",
+                               job.getId(), job.getStatus(), job.getProcessed(), job.getFailed(), job.getDiscovered());
+                }
+            }
+        }
+        
+        /**
+         * Saves a batch and records its outbox entries in one transaction, so a crash can never
+         * leave saved rows that nothing will index. Existing rows are loaded in the same
+         * transaction, so they are updated in place instead of being merged back one by one.
+         */
+        private void persistBatch(List<Document> batch) {
+            try {
+                Map<String, Document> existing = transactionTemplate.execute(status -> {
+                    // Files seen before keep their row and id, so a rerun updates instead of duplicating
+                    List<String> urls = batch.stream().map(Document::getUrl).collect(Collectors.toList());
+                    Map<String, Document> rows = documentRepository.findByUrlIn(urls).stream()
+                        .collect(Collectors.toMap(Document::getUrl, Function.identity(), (a, b) -> a));
+                    
+                    List<Document> toSave = new ArrayList<>(batch.size());
+                    for (Document document : batch) {
+                        Document current = rows.get(document.getUrl());
+                        if (current != null) {
+                            current.setTitle(document.getTitle());
+                            current.setContent(document.getContent());
+                            current.setContentType(document.getContentType());
+                            current.setFileSize(document.getFileSize());
+                            current.setFilePath(document.getFilePath());
+                            current.setFileModifiedAt(document.getFileModifiedAt());
+                            current.setContentHash(document.getContentHash());
+                            current.setIsIndexed(false);
+                            toSave.add(current);
+                        } else {
+                            toSave.add(document);
+                        }
+                    }
+                    
+                    List<IndexOutboxEntry> entries = new ArrayList<>(toSave.size());
+                    for (Document document : documentRepository.saveAll(toSave)) {
+                        entries.add(new IndexOutboxEntry(document.getId(), rows.containsKey(document.getUrl())
+                                ? IndexOutboxEntry.Operation.UPDATE : IndexOutboxEntry.Operation.ADD));
+                    }
+                    indexOutboxService.enqueueAll(entries);
+                    return rows;
+                });
+                
+                int changed = (int) batch.stream().filter(document -> existing.containsKey(document.getUrl())).count();
+                job.recordAddedAndChanged(batch.size() - changed, changed);
+                long bytes = batch.stream()
+                    .mapToLong(document -> document.getFileSize() != null ? document.getFileSize() : 0L).sum();
+                job.recordProcessed(batch.size(), bytes);
+            } catch (Exception e) {
+                logger.error("Error saving batch of {} documents: {}", batch.size(), e.getMessage(), e);
+                job.recordErrors(batch.size(), "batch of " + batch.size() + " documents", e.getMessage());
+            }
+        }
+        
+        private Document extractDocument(FileCandidate file, String hash) throws Exception {
+            Path path = file.path;
+            ExtractedContent extracted = textExtractionService.extract(path);
+            Document document = new Document(path.getFileName().toString(), extracted.getText(), fileUrl(path));
+            document.setContentType(extracted.getContentType());
+            // Size and time are from before the read, so a concurrent edit is caught by the next sync
+            document.setFileSize(file.size);
+            document.setFileModifiedAt(file.modifiedAt);
+            document.setContentHash(hash);
+            document.setFilePath(path.toString());
+            return document;
+        }
+        
+        private <T> void signalEnd(BlockingQueue<T> queue, T marker, int consumers) {
+            try {
+                for (int i = 0; i < consumers; i++) {
+                    queue.put(marker);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
\ No newline at end of file
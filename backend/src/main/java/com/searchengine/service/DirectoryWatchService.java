@@ -0,0 +1,303 @@
+package com.searchengine.service;
+
+import com.searchengine.model.WatchRoot;
+import com.searchengine.repository.WatchRootRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps registered directories in sync with the index by watching them for file changes.
+ * Events are coalesced per path and only acted on once a path has been quiet for the debounce
+ * period, so a burst of writes to one file triggers a single reindex. Changed paths are handed
+ * to {@link DirectoryIngestionService} in batches, one sync job at a time.
+ */
+@Service
+public class DirectoryWatchService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryWatchService.class);
+    
+    @Autowired
+    private WatchRootRepository watchRootRepository;
+    
+    @Autowired
+    private DirectoryIngestionService directoryIngestionService;
+    
+    @Autowired
+    private IndexingJobService indexingJobService;
+    
+    // A path must see no new events for this long before it is synced
+    @Value("${search.watch.debounce-ms:2000}")
+    private long debounceMs;
+    
+    // Every flush starts a job, so only the most recent finished ones are kept
+    @Value("${search.watch.jobs-retained:50}")
+    private int jobsRetained;
+    
+    private WatchService watchService;
+    private Thread watcherThread;
+    private ScheduledExecutorService flushScheduler;
+    
+    private final Map<WatchKey, WatchedDirectory> watchedDirectories = new ConcurrentHashMap<>();
+    // Last event time per changed file, keyed by watch root; repeated events only move the time
+    private final Map<Long, Map<Path, Long>> pendingChanges = new ConcurrentHashMap<>();
+    // Directories whose events were lost or that were deleted, synced in full instead
+    private final Set<Path> pendingRescans = ConcurrentHashMap.newKeySet();
+    private JobProgress activeJob;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() throws IOException {
+        watchService = FileSystems.getDefault().newWatchService();
+        watcherThread = new Thread(this::processEvents, "SearchEngine-Watch");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        
+        flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SearchEngine-Watch-Flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(debounceMs / 4, 50);
+        flushScheduler.scheduleWithFixedDelay(this::flushPendingQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        
+        for (WatchRoot root : watchRootRepository.findAll()) {
+            try {
+                register(root);
+                // Catch up on whatever changed while the application was down
+                pendingRescans.add(Paths.get(root.getPath()));
+            } catch (IOException e) {
+                logger.error("Could not watch {}: {}", root.getPath(), e.getMessage());
+            }
+        }
+        logger.info("Directory watcher started ({} roots, {}ms debounce)", watchRootRepository.count(), debounceMs);
+    }
+    
+    @PreDestroy
+    public void stop() throws IOException {
+        if (flushScheduler != null) {
+            flushScheduler.shutdownNow();
+        }
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+    
+    /**
+     * Starts watching a directory and syncs it once, so files already there are indexed.
+     */
+    public WatchRoot addWatch(String directoryPath, boolean recursive) throws IOException {
+        Path path = Paths.get(directoryPath).toAbsolutePath().normalize();
+        if (!Files.isDirectory(path)) {
+            throw new IllegalArgumentException("Invalid directory path: " + directoryPath);
+        }
+        if (watchRootRepository.findByPath(path.toString()).isPresent()) {
+            throw new IllegalArgumentException("Directory is already watched: " + path);
+        }
+        
+        WatchRoot root = watchRootRepository.save(new WatchRoot(path.toString(), recursive));
+        register(root);
+        pendingRescans.add(path);
+        logger.info("Watching {} (recursive: {})", path, recursive);
+        return root;
+    }
+    
+    /**
+     * Stops watching a directory. Documents already indexed from it are kept.
+     */
+    public boolean removeWatch(Long id) {
+        Optional<WatchRoot> root = watchRootRepository.findById(id);
+        if (root.isEmpty()) {
+            return false;
+        }
+        
+        Iterator<Map.Entry<WatchKey, WatchedDirectory>> entries = watchedDirectories.entrySet().iterator();
+        while (entries.hasNext()) {
+            Map.Entry<WatchKey, WatchedDirectory> entry = entries.next();
+            if (entry.getValue().root.getId().equals(id)) {
+                entry.getKey().cancel();
+                entries.remove();
+            }
+        }
+        pendingChanges.remove(id);
+        watchRootRepository.deleteById(id);
+        logger.info("Stopped watching {}", root.get().getPath());
+        return true;
+    }
+    
+    public List<WatchRoot> getWatches() {
+        return watchRootRepository.findAll();
+    }
+    
+    private static class WatchedDirectory {
+        
+        private final WatchRoot root;
+        private final Path directory;
+        
+        WatchedDirectory(WatchRoot root, Path directory) {
+            this.root = root;
+            this.directory = directory;
+        }
+    }
+    
+    private void register(WatchRoot root) throws IOException {
+        Path path = Paths.get(root.getPath());
+        if (root.getRecursive()) {
+            registerTree(root, path);
+        } else {
+            registerDirectory(root, path);
+        }
+    }
+    
+    private void registerTree(WatchRoot root, Path start) throws IOException {
+        // WatchService only reports direct children, so every subdirectory gets its own key
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                registerDirectory(root, dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
+    private void registerDirectory(WatchRoot root, Path directory) throws IOException {
+        WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        watchedDirectories.put(key, new WatchedDirectory(root, directory));
+    }
+    
+    private void processEvents() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                WatchedDirectory watched = watchedDirectories.get(key);
+                if (watched != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        handleEvent(watched, event);
+                    }
+                }
+                if (!key.reset()) {
+                    // The directory is gone or no longer accessible
+                    watchedDirectories.remove(key);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            logger.debug("Directory watcher stopped");
+        }
+    }
+    
+    private void handleEvent(WatchedDirectory watched, WatchEvent<?> event) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+            // Events were dropped, so only a rescan of this directory can tell what changed
+            logger.warn("Watch events overflowed for {}; rescanning it", watched.directory);
+            pendingRescans.add(watched.directory);
+            return;
+        }
+        
+        Path path = watched.directory.resolve((Path) event.context());
+        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+            if (watched.root.getRecursive()) {
+                try {
+                    registerTree(watched.root, path);
+                } catch (IOException e) {
+                    logger.error("Could not watch new directory {}: {}", path, e.getMessage());
+                }
+                // Files may have landed in it before it was registered
+                pendingRescans.add(path);
+            }
+        } else if (DirectoryIngestionService.isIndexableFile(path)) {
+            pendingChanges.computeIfAbsent(watched.root.getId(), id -> new ConcurrentHashMap<>())
+                .put(path, System.nanoTime());
+        } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+            // Possibly a whole directory; a rescan of the parent drops the documents of its files
+            pendingRescans.add(watched.directory);
+        }
+    }
+    
+    private void flushPendingQuietly() {
+        try {
+            flushPending();
+        } catch (Exception e) {
+            logger.error("Error syncing watched changes: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Starts a sync for paths that have been quiet for the debounce period. Only one sync runs at
+     * a time; changes arriving meanwhile accumulate and go into the next batch.
+     */
+    synchronized void flushPending() {
+        if (activeJob != null) {
+            if (!activeJob.isFinished()) {
+                return;
+            }
+            indexingJobService.pruneFinishedJobs(DirectoryIngestionService.WATCH_JOB_TYPE, jobsRetained);
+            activeJob = null;
+        }
+        
+        Iterator<Path> rescans = pendingRescans.iterator();
+        if (rescans.hasNext()) {
+            Path directory = rescans.next();
+            rescans.remove();
+            if (Files.isDirectory(directory)) {
+                activeJob = directoryIngestionService.startDirectoryIngestion(directory.toString(),
+                        isRecursivelyWatched(directory), true, DirectoryIngestionService.WATCH_JOB_TYPE);
+                return;
+            }
+        }
+        
+        long quietSince = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(debounceMs);
+        for (Map.Entry<Long, Map<Path, Long>> rootChanges : pendingChanges.entrySet()) {
+            List<Path> ready = new ArrayList<>();
+            for (Map.Entry<Path, Long> change : rootChanges.getValue().entrySet()) {
+                // Removes the entry only if no newer event arrived since it was read
+                if (change.getValue() <= quietSince
+                        && rootChanges.getValue().remove(change.getKey(), change.getValue())) {
+                    ready.add(change.getKey());
+                }
+            }
+            if (!ready.isEmpty()) {
+                Path root = watchRootRepository.findById(rootChanges.getKey())
+                    .map(watchRoot -> Paths.get(watchRoot.getPath()))
+                    .orElse(ready.get(0).getParent());
+                activeJob = directoryIngestionService.startFileSync(root, ready);
+                return;
+            }
+        }
+    }
+    
+    private boolean isRecursivelyWatched(Path directory) {
+        return watchedDirectories.values().stream()
+            .anyMatch(watched -> directory.startsWith(Paths.get(watched.root.getPath())) && watched.root.getRecursive());
+    }
+}
\ No newline at end of file
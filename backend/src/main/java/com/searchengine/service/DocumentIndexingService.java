@@ -1,26 +1,41 @@
 package com.searchengine.service;
 
 import com.searchengine.model.Document;
+import com.searchengine.model.IndexOutboxEntry;
 import com.searchengine.repository.DocumentRepository;
-import org.apache.tika.Tika;
-import org.apache.tika.exception.TikaException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 @Transactional
@@ -34,7 +49,27 @@ public class DocumentIndexingService {
     @Autowired
     private LuceneSearchService luceneSearchService;
     
-    private final Tika tika = new Tika();
+    @Autowired
+    private IndexingJobService indexingJobService;
+    
+    @Autowired
+    private IndexOutboxService indexOutboxService;
+    
+    @Value("${search.reindex.chunk-size:500}")
+    private int reindexChunkSize;
+    
+    @Value("${search.reindex.workers:4}")
+    private int reindexWorkers;
+    
+    // Popular queries of the last day run against a rebuilt index before it goes live
+    @Value("${search.rebuild.warm-queries:20}")
+    private int rebuildWarmQueries;
+    
+    @Autowired
+    private QueryStatsService queryStatsService;
+    
+    @Autowired
+    private TextExtractionService textExtractionService;
     
     public Document indexDocument(String title, String content, String url) {
         try {
@@ -50,15 +85,10 @@ public class DocumentIndexingService {
             document.setContentType("text/html");
             document = documentRepository.save(document);
             
-            // Index in Lucene
-            luceneSearchService.indexDocument(document);
+            // Indexed in Lucene once the transaction commits
+            indexOutboxService.enqueue(document.getId(), IndexOutboxEntry.Operation.ADD);
             
-            // Mark as indexed
-            document.setIsIndexed(true);
-            document.setIndexedAt(LocalDateTime.now());
-            document = documentRepository.save(document);
-            
-            logger.info("Successfully indexed document: {} (ID: {})", title, document.getId());
+            logger.info("Successfully saved document for indexing: {} (ID: {})", title, document.getId());
             return document;
             
         } catch (Exception e) {
@@ -79,15 +109,11 @@ public class DocumentIndexingService {
             document.setContent(content);
             document.setUrl(url);
             document.setUpdatedAt(LocalDateTime.now());
+            document.setIsIndexed(false);
             document = documentRepository.save(document);
             
-            // Update in Lucene
-            luceneSearchService.updateDocument(document);
-            
-            // Mark as indexed
-            document.setIsIndexed(true);
-            document.setIndexedAt(LocalDateTime.now());
-            document = documentRepository.save(document);
+            // Updated in Lucene once the transaction commits
+            indexOutboxService.enqueue(document.getId(), IndexOutboxEntry.Operation.UPDATE);
             
             logger.info("Successfully updated document: {} (ID: {})", title, document.getId());
             return document;
@@ -105,11 +131,9 @@ public class DocumentIndexingService {
                 throw new IllegalArgumentException("Document with ID " + documentId + " not found");
             }
             
-            // Delete from Lucene index
-            luceneSearchService.deleteDocument(documentId);
-            
-            // Delete from database
+            // Delete from database; the index entry goes once the transaction commits
             documentRepository.deleteById(documentId);
+            indexOutboxService.enqueue(documentId, IndexOutboxEntry.Operation.DELETE);
             
             logger.info("Successfully deleted document with ID: {}", documentId);
             
@@ -119,13 +143,16 @@ public class DocumentIndexingService {
         }
     }
     
-    public Document indexFile(MultipartFile file, String title, String url) throws IOException, TikaException {
+    public Document indexFile(MultipartFile file, String title, String url) throws IOException {
         if (file.isEmpty()) {
             throw new IllegalArgumentException("File is empty");
         }
         
         // Extract text content using Tika
-        String content = tika.parseToString(file.getInputStream());
+        String content;
+        try (InputStream input = file.getInputStream()) {
+            content = textExtractionService.extract(input, file.getOriginalFilename()).getText();
+        }
         String contentType = file.getContentType();
         long fileSize = file.getSize();
         
@@ -144,16 +171,9 @@ public class DocumentIndexingService {
             document.setContentType(contentType);
             document.setFileSize(fileSize);
             document = documentRepository.save(document);
+            indexOutboxService.enqueue(document.getId(), IndexOutboxEntry.Operation.ADD);
             
-            // Index in Lucene
-            luceneSearchService.indexDocument(document);
-            
-            // Mark as indexed
-            document.setIsIndexed(true);
-            document.setIndexedAt(LocalDateTime.now());
-            document = documentRepository.save(document);
-            
-            logger.info("Successfully indexed file: {} (ID: {})", title, document.getId());
+            logger.info("Successfully saved file for indexing: {} (ID: {})", title, document.getId());
             return document;
             
         } catch (Exception e) {
@@ -162,16 +182,21 @@ public class DocumentIndexingService {
         }
     }
     
-    public Document indexFileFromPath(String filePath, String title, String url) throws IOException, TikaException {
+    public Document indexFileFromPath(String filePath, String title, String url) throws IOException {
         Path path = Paths.get(filePath);
         if (!Files.exists(path)) {
             throw new IllegalArgumentException("File does not exist: " + filePath);
         }
         
-        // Extract text content using Tika
-        String content = tika.parseToString(path);
-        String contentType = tika.detect(path);
+        // Stat before reading, so an edit made during extraction shows up as a change next time
         long fileSize = Files.size(path);
+        LocalDateTime fileModifiedAt = DirectoryIngestionService.lastModified(path);
+        String contentHash = DirectoryIngestionService.contentHash(path);
+        
+        // Extract text content using Tika
+        ExtractedContent extracted = textExtractionService.extract(path);
+        String content = extracted.getText();
+        String contentType = extracted.getContentType();
         
         // Use filename as title if not provided
         if (title == null || title.trim().isEmpty()) {
@@ -180,25 +205,27 @@ public class DocumentIndexingService {
         
         // Generate URL if not provided
         if (url == null || url.trim().isEmpty()) {
-            url = "file://" + path.toAbsolutePath().toString();
+            url = DirectoryIngestionService.fileUrl(path);
         }
         
         try {
-            Document document = new Document(title, content, url);
+            // A file indexed before keeps its row, so indexing it again updates instead of duplicating
+            Optional<Document> existingDoc = documentRepository.findByUrl(url);
+            Document document = existingDoc.orElseGet(Document::new);
+            document.setTitle(title);
+            document.setContent(content);
+            document.setUrl(url);
             document.setContentType(contentType);
             document.setFileSize(fileSize);
+            document.setFileModifiedAt(fileModifiedAt);
+            document.setContentHash(contentHash);
             document.setFilePath(filePath);
+            document.setIsIndexed(false);
             document = documentRepository.save(document);
+            indexOutboxService.enqueue(document.getId(),
+                    existingDoc.isPresent() ? IndexOutboxEntry.Operation.UPDATE : IndexOutboxEntry.Operation.ADD);
             
-            // Index in Lucene
-            luceneSearchService.indexDocument(document);
-            
-            // Mark as indexed
-            document.setIsIndexed(true);
-            document.setIndexedAt(LocalDateTime.now());
-            document = documentRepository.save(document);
-            
-            logger.info("Successfully indexed file from path: {} (ID: {})", filePath, document.getId());
+            logger.info("Successfully saved file from path for indexing: {} (ID: {})", filePath, document.getId());
             return document;
             
         } catch (Exception e) {
@@ -207,68 +234,286 @@ public class DocumentIndexingService {
         }
     }
     
+    /**
+     * Reindexes every document with an id above {@code afterId}; pass 0 for a full reindex or a
+     * previous job's checkpoint to resume it. Runs without a surrounding transaction so each
+     * chunk is read and flagged in its own short one.
+     */
     @Async
-    public CompletableFuture<Void> reindexAllDocuments() {
-        logger.info("Starting reindexing of all documents...");
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Void> reindexAllDocuments(JobProgress job, long afterId) {
+        logger.info("Starting reindexing of documents after id {} (job {})...", afterId, job.getId());
         
         try {
-            List<Document> documents = documentRepository.findAll();
-            int total = documents.size();
-            int indexed = 0;
-            int errors = 0;
+            reindexFrom(afterId, job, false);
+            logger.info("Reindexing completed. Total: {}, Indexed: {}, Errors: {}",
+                       job.getTotal(), job.getProcessed(), job.getFailed());
             
-            for (Document document : documents) {
-                try {
-                    luceneSearchService.updateDocument(document);
-                    document.setIsIndexed(true);
-                    document.setIndexedAt(LocalDateTime.now());
-                    documentRepository.save(document);
-                    indexed++;
-                } catch (Exception e) {
-                    logger.error("Error reindexing document {}: {}", document.getId(), e.getMessage());
-                    document.setIsIndexed(false);
-                    documentRepository.save(document);
-                    errors++;
-                }
-            }
+        } catch (Exception e) {
+            logger.error("Error during reindexing: {}", e.getMessage(), e);
+            job.fail(e.getMessage());
+        } finally {
+            indexingJobService.finishJob(job);
+        }
+        
+        return CompletableFuture.completedFuture(null);
+    }
+    
+    /**
+     * Builds a complete new index from the database next to the live one and swaps it in once it
+     * is warm. Searches keep hitting the old index until the swap, which stays on disk for rollback.
+     * Index writes only follow a database commit, so a change committed before the rebuild starts
+     * is read by the stream and any later one reaches the rebuild through the live write mirror;
+     * rows deleted in between are dropped by diffing the rebuilt ids against the table.
+     */
+    @Async
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public CompletableFuture<Void> rebuildIndex(JobProgress job) {
+        logger.info("Starting blue/green index rebuild (job {})...", job.getId());
+        boolean started = false;
+        
+        try {
+            luceneSearchService.beginRebuild();
+            started = true;
+            reindexFrom(0, job, true);
             
-            logger.info("Reindexing completed. Total: {}, Indexed: {}, Errors: {}", total, indexed, errors);
+            if (job.isCancelRequested() || job.getFailed() > 0) {
+                logger.warn("Index rebuild incomplete ({} failed); keeping the current index", job.getFailed());
+                luceneSearchService.abortRebuild();
+            } else {
+                luceneSearchService.removeDeletedFromRebuild(reindexChunkSize, documentRepository::findExistingIds);
+                luceneSearchService.completeRebuild(warmQueries());
+                logger.info("Index rebuild completed. Indexed: {}", job.getProcessed());
+            }
             
         } catch (Exception e) {
-            logger.error("Error during reindexing: {}", e.getMessage(), e);
+            logger.error("Error during index rebuild: {}", e.getMessage(), e);
+            job.fail(e.getMessage());
+            if (started) {
+                abortRebuildQuietly();
+            }
+        } finally {
+            indexingJobService.finishJob(job);
         }
         
         return CompletableFuture.completedFuture(null);
     }
     
-    public void indexDirectory(String directoryPath, boolean recursive) throws IOException, TikaException {
-        Path dirPath = Paths.get(directoryPath);
-        if (!Files.exists(dirPath) || !Files.isDirectory(dirPath)) {
-            throw new IllegalArgumentException("Invalid directory path: " + directoryPath);
+    private List<String> warmQueries() {
+        List<String> queries = new ArrayList<>();
+        for (Object[] row : queryStatsService.getPopularQueries(Duration.ofDays(1))) {
+            if (queries.size() >= rebuildWarmQueries) {
+                break;
+            }
+            queries.add((String) row[0]);
+        }
+        return queries;
+    }
+    
+    private void abortRebuildQuietly() {
+        try {
+            luceneSearchService.abortRebuild();
+        } catch (Exception e) {
+            logger.error("Error discarding failed index rebuild: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Rebuilds an index written with an older schema from the database. Older indexes stored
+     * the id without indexing it, so every update left a duplicate behind; the rebuild drops
+     * all of them and indexes exactly one copy of each document. The new index is built next to
+     * the outdated one, which keeps serving searches until the swap.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void migrateIndexIfRequired() {
+        if (!luceneSearchService.isMigrationRequired()) {
+            return;
+        }
+        
+        logger.info("Starting one-time index migration...");
+        JobProgress job = indexingJobService.startJob("MIGRATION", "lucene index");
+        boolean started = false;
+        
+        try {
+            luceneSearchService.beginMigration();
+            started = true;
+            reindexFrom(0, job, true);
+            
+            // A cancelled migration keeps the old schema version, so the next start runs it again.
+            // Documents that failed are left to the job record and their isIndexed flag; retrying
+            // them by rebuilding everything on every start would never converge
+            if (job.isCancelRequested()) {
+                logger.warn("Index migration cancelled; it will be retried on next start");
+                luceneSearchService.abortRebuild();
+            } else {
+                luceneSearchService.removeDeletedFromRebuild(reindexChunkSize, documentRepository::findExistingIds);
+                luceneSearchService.completeRebuild(warmQueries());
+                if (job.getFailed() > 0) {
+                    logger.warn("Index migration completed with {} documents left unindexed; see job {}",
+                            job.getFailed(), job.getId());
+                }
+                logger.info("Index migration completed. Indexed: {}", job.getProcessed());
+            }
+            
+        } catch (Exception e) {
+            logger.error("Error during index migration: {}", e.getMessage(), e);
+            job.fail(e.getMessage());
+            if (started) {
+                abortRebuildQuietly();
+            }
+        } finally {
+            indexingJobService.finishJob(job);
         }
+    }
+    
+    /**
+     * Streams documents in id order, one keyset-paginated chunk at a time, and indexes the chunks
+     * on a worker pool. Chunks can finish out of order, so the checkpoint only moves past a chunk
+     * once every earlier chunk is done, and never past a chunk that failed; resuming from it never
+     * skips a document. Live writes are lost in a crash until an index commit covers them, so the
+     * checkpoint also waits for the commit policy. With {@code intoRebuild} the chunks go to the
+     * index being rebuilt instead of the live one; a crashed rebuild is discarded and starts over,
+     * so its checkpoint does not wait for commits.
+     */
+    private void reindexFrom(long afterId, JobProgress job, boolean intoRebuild) throws InterruptedException {
+        job.setTotal(documentRepository.countByIdGreaterThan(afterId));
+        job.setCheckpoint(afterId);
         
-        logger.info("Starting indexing of directory: {}", directoryPath);
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(reindexWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "SearchEngine-Reindex-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Deque<Map.Entry<Long, Future<?>>> inFlight = new ArrayDeque<>();
+        ReindexCheckpoint checkpoint = new ReindexCheckpoint(job, intoRebuild);
         
-        Files.walk(dirPath, recursive ? Integer.MAX_VALUE : 1)
-            .filter(Files::isRegularFile)
-            .filter(path -> isIndexableFile(path))
-            .forEach(path -> {
-                try {
-                    indexFileFromPath(path.toString(), null, null);
-                } catch (Exception e) {
-                    logger.error("Error indexing file {}: {}", path, e.getMessage());
+        try {
+            long lastId = afterId;
+            while (!job.isCancelRequested()) {
+                List<Document> chunk = documentRepository.findByIdGreaterThanOrderByIdAsc(
+                    lastId, PageRequest.of(0, reindexChunkSize));
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                lastId = chunk.get(chunk.size() - 1).getId();
+                inFlight.addLast(Map.entry(lastId, workers.submit(() -> reindexChunk(chunk, job, intoRebuild))));
+                
+                // Bounded read-ahead keeps memory at a few chunks whatever the table size
+                while (inFlight.size() > reindexWorkers * 2
+                        || (!inFlight.isEmpty() && inFlight.peekFirst().getValue().isDone())) {
+                    awaitOldestChunk(inFlight, checkpoint, job);
                 }
-            });
+            }
+            while (!inFlight.isEmpty()) {
+                awaitOldestChunk(inFlight, checkpoint, job);
+            }
+            checkpoint.finish();
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+    
+    private void awaitOldestChunk(Deque<Map.Entry<Long, Future<?>>> inFlight, ReindexCheckpoint checkpoint,
+                                  JobProgress job) throws InterruptedException {
+        Map.Entry<Long, Future<?>> oldest = inFlight.removeFirst();
+        try {
+            oldest.getValue().get();
+            checkpoint.chunkDone(oldest.getKey());
+        } catch (ExecutionException e) {
+            logger.error("Reindex chunk ending at id {} failed: {}", oldest.getKey(), e.getCause().getMessage());
+            job.recordError("chunk ending at id " + oldest.getKey(), e.getCause().getMessage());
+            checkpoint.chunkFailed();
+        }
+    }
+    
+    /**
+     * Moves the checkpoint of a reindex over finished chunks in id order. It stops for good at the
+     * first failed chunk, so a resumed run starts over from there, and for live writes it only
+     * passes chunks that an index commit covers.
+     */
+    private class ReindexCheckpoint {
         
-        logger.info("Directory indexing completed for: {}", directoryPath);
+        private final JobProgress job;
+        private final boolean intoRebuild;
+        // Finished chunk ends with the commit marker their writes wait for
+        private final Deque<Map.Entry<Long, Long>> uncommitted = new ArrayDeque<>();
+        private boolean held;
+        
+        ReindexCheckpoint(JobProgress job, boolean intoRebuild) {
+            this.job = job;
+            this.intoRebuild = intoRebuild;
+        }
+        
+        void chunkDone(long lastId) {
+            if (held) {
+                return;
+            }
+            if (intoRebuild) {
+                job.setCheckpoint(lastId);
+                return;
+            }
+            uncommitted.addLast(Map.entry(lastId, luceneSearchService.getCommitMarker()));
+            advance();
+        }
+        
+        void chunkFailed() {
+            held = true;
+        }
+        
+        void finish() {
+            if (uncommitted.isEmpty()) {
+                return;
+            }
+            // One commit at the end lets the run record its final checkpoint
+            try {
+                luceneSearchService.flush();
+            } catch (IOException e) {
+                logger.warn("Could not commit reindexed documents; the checkpoint stays behind them: {}", e.getMessage());
+            }
+            advance();
+        }
+        
+        private void advance() {
+            while (!uncommitted.isEmpty() && luceneSearchService.isCommitted(uncommitted.peekFirst().getValue())) {
+                job.setCheckpoint(uncommitted.removeFirst().getKey());
+            }
+        }
     }
     
-    private boolean isIndexableFile(Path path) {
-        String fileName = path.getFileName().toString().toLowerCase();
-        return fileName.endsWith(".txt") || fileName.endsWith(".pdf") || 
-               fileName.endsWith(".doc") || fileName.endsWith(".docx") ||
-               fileName.endsWith(".html") || fileName.endsWith(".xml") ||
-               fileName.endsWith(".rtf") || fileName.endsWith(".odt");
+    private void reindexChunk(List<Document> chunk, JobProgress job, boolean intoRebuild) {
+        List<Long> indexedIds = new ArrayList<>(chunk.size());
+        List<Long> failedIds = new ArrayList<>();
+        long bytes = 0;
+        
+        for (Document document : chunk) {
+            try {
+                if (intoRebuild) {
+                    luceneSearchService.addToRebuild(document);
+                } else {
+                    luceneSearchService.updateDocument(document);
+                }
+                indexedIds.add(document.getId());
+                bytes += document.getFileSize() != null ? document.getFileSize() : 0L;
+            } catch (Exception e) {
+                logger.error("Error reindexing document {}: {}", document.getId(), e.getMessage());
+                failedIds.add(document.getId());
+                job.recordError("document " + document.getId(), e.getMessage());
+            }
+        }
+        
+        try {
+            if (!indexedIds.isEmpty()) {
+                documentRepository.markIndexed(indexedIds, LocalDateTime.now());
+            }
+            if (!failedIds.isEmpty()) {
+                documentRepository.markNotIndexed(failedIds);
+            }
+        } catch (Exception e) {
+            logger.error("Error updating index flags for {} documents: {}", chunk.size(), e.getMessage(), e);
+        }
+        job.recordProcessed(indexedIds.size(), bytes);
     }
     
     public List<Document> getAllDocuments() {
@@ -0,0 +1,30 @@
+package com.searchengine.service;
+
+/**
+ * Text extracted from a file, capped at the configured number of characters.
+ */
+public class ExtractedContent {
+    
+    private final String text;
+    private final String contentType;
+    private final boolean truncated;
+    
+    public ExtractedContent(String text, String contentType, boolean truncated) {
+        this.text = text;
+        this.contentType = contentType;
+        this.truncated = truncated;
+    }
+    
+    public String getText() {
+        return text;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    /** True if the file held more text than the character cap and the rest was dropped. */
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.searchengine.service;
+
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.LeafCollector;
+import org.apache.lucene.search.Scorable;
+import org.apache.lucene.search.ScoreMode;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Counts every hit of a query by content type, file size bucket and age bucket while the top
+ * hits are collected, reading only doc values. Content types are counted by ordinal within a
+ * segment and resolved to strings once the segment is done; each search slice gets its own
+ * collector and the counts are summed at the end.
+ */
+class FacetCountsCollectorManager implements CollectorManager<FacetCountsCollectorManager.FacetCountsCollector,
+        Map<String, Map<String, Long>>> {
+
+    private static final long KB = 1024;
+    private static final long MB = 1024 * KB;
+
+    // Upper bounds (exclusive) of the file size buckets; the last bucket is open-ended
+    private static final long[] SIZE_BOUNDS = {10 * KB, 100 * KB, MB, 10 * MB};
+    private static final String[] SIZE_LABELS = {"<10KB", "10KB-100KB", "100KB-1MB", "1MB-10MB", ">=10MB"};
+
+    // Age buckets are cumulative, so a document created today counts in all of them
+    private static final Duration[] AGE_BOUNDS = {Duration.ofDays(1), Duration.ofDays(7), Duration.ofDays(30),
+            Duration.ofDays(365)};
+    private static final String[] AGE_LABELS = {"pastDay", "pastWeek", "pastMonth", "pastYear"};
+
+    private final long[] ageCutoffs = new long[AGE_BOUNDS.length];
+
+    /**
+     * @param nowMillis the reference time of the age buckets, in the epoch millis the index stores
+     */
+    FacetCountsCollectorManager(long nowMillis) {
+        for (int i = 0; i < AGE_BOUNDS.length; i++) {
+            ageCutoffs[i] = nowMillis - AGE_BOUNDS[i].toMillis();
+        }
+    }
+
+    @Override
+    public FacetCountsCollector newCollector() {
+        return new FacetCountsCollector();
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> reduce(Collection<FacetCountsCollector> collectors) {
+        Map<String, Long> contentTypes = new HashMap<>();
+        long[] sizes = new long[SIZE_LABELS.length];
+        long[] ages = new long[AGE_LABELS.length];
+        for (FacetCountsCollector collector : collectors) {
+            collector.contentTypeCounts.forEach((type, count) -> contentTypes.merge(type, count, Long::sum));
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] += collector.sizeCounts[i];
+            }
+            for (int i = 0; i < ages.length; i++) {
+                ages[i] += collector.ageCounts[i];
+            }
+        }
+
+        Map<String, Long> sortedContentTypes = new LinkedHashMap<>();
+        contentTypes.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sortedContentTypes.put(entry.getKey(), entry.getValue()));
+
+        Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+        facets.put("contentType", sortedContentTypes);
+        facets.put("fileSize", labelled(SIZE_LABELS, sizes));
+        facets.put("createdAt", labelled(AGE_LABELS, ages));
+        return facets;
+    }
+
+    private static Map<String, Long> labelled(String[] labels, long[] counts) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < labels.length; i++) {
+            result.put(labels[i], counts[i]);
+        }
+        return result;
+    }
+
+    class FacetCountsCollector implements Collector {
+
+        private final Map<String, Long> contentTypeCounts = new HashMap<>();
+        private final long[] sizeCounts = new long[SIZE_LABELS.length];
+        private final long[] ageCounts = new long[AGE_LABELS.length];
+
+        @Override
+        public LeafCollector getLeafCollector(LeafReaderContext context) throws IOException {
+            SortedDocValues contentTypes = context.reader().getSortedDocValues("contentType");
+            NumericDocValues fileSizes = context.reader().getNumericDocValues("fileSize");
+            NumericDocValues createdAts = context.reader().getNumericDocValues("createdAt");
+            int[] ordCounts = contentTypes != null ? new int[contentTypes.getValueCount()] : null;
+
+            return new LeafCollector() {
+                @Override
+                public void setScorer(Scorable scorer) {
+                }
+
+                @Override
+                public void collect(int doc) throws IOException {
+                    if (contentTypes != null && contentTypes.advanceExact(doc)) {
+                        ordCounts[contentTypes.ordValue()]++;
+                    }
+                    if (fileSizes != null && fileSizes.advanceExact(doc)) {
+                        sizeCounts[sizeBucket(fileSizes.longValue())]++;
+                    }
+                    if (createdAts != null && createdAts.advanceExact(doc)) {
+                        long createdAt = createdAts.longValue();
+                        for (int i = 0; i < ageCutoffs.length; i++) {
+                            if (createdAt >= ageCutoffs[i]) {
+                                ageCounts[i]++;
+                            }
+                        }
+                    }
+                }
+
+                @Override
+                public void finish() throws IOException {
+                    if (ordCounts == null) {
+                        return;
+                    }
+                    for (int ord = 0; ord < ordCounts.length; ord++) {
+                        if (ordCounts[ord] > 0) {
+                            contentTypeCounts.merge(contentTypes.lookupOrd(ord).utf8ToString(),
+                                    (long) ordCounts[ord], Long::sum);
+                        }
+                    }
+                }
+            };
+        }
+
+        @Override
+        public ScoreMode scoreMode() {
+            return ScoreMode.COMPLETE_NO_SCORES;
+        }
+    }
+
+    private static int sizeBucket(long size) {
+        for (int i = 0; i < SIZE_BOUNDS.length; i++) {
+            if (size < SIZE_BOUNDS[i]) {
+                return i;
+            }
+        }
+        return SIZE_BOUNDS.length;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.searchengine.service;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.FuzzyQuery;
+import org.apache.lucene.search.MultiTermQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.util.automaton.ByteRunAutomaton;
+
+import java.util.function.Supplier;
+
+/**
+ * Query parser that bounds the work a user query can cause. Wildcard, prefix, regexp and fuzzy
+ * terms are rewritten to their {@code maxExpansions} best matching index terms, fuzzy terms are
+ * limited to {@code maxFuzzyEdits} edits, and queries with a leading wildcard, more than
+ * {@code maxClauses} clauses or more than {@code maxExpandingTerms} expanding terms are rejected.
+ * Clauses are counted per field, so a plain term searched in title and content counts twice.
+ */
+class GuardedQueryParser extends MultiFieldQueryParser {
+
+    private final int maxClauses;
+    private final int maxExpandingTerms;
+    private final int maxExpansions;
+    private final int maxFuzzyEdits;
+
+    GuardedQueryParser(String[] fields, Analyzer analyzer, int maxClauses, int maxExpandingTerms,
+                       int maxExpansions, int maxFuzzyEdits) {
+        super(fields, analyzer);
+        this.maxClauses = maxClauses;
+        this.maxExpandingTerms = maxExpandingTerms;
+        this.maxExpansions = maxExpansions;
+        this.maxFuzzyEdits = maxFuzzyEdits;
+        setMultiTermRewriteMethod(new MultiTermQuery.TopTermsBlendedFreqScoringRewrite(maxExpansions));
+    }
+
+    @Override
+    public Query parse(String query) throws ParseException {
+        Query parsed = super.parse(query);
+        ClauseCounter counter = new ClauseCounter();
+        parsed.visit(counter);
+        if (counter.clauses > maxClauses) {
+            throw new QueryRejectedException("Query has " + counter.clauses + " clauses; at most "
+                    + maxClauses + " are allowed");
+        }
+        if (counter.expandingTerms > maxExpandingTerms) {
+            throw new QueryRejectedException("Query has " + counter.expandingTerms
+                    + " wildcard, prefix, regexp or fuzzy clauses; at most " + maxExpandingTerms + " are allowed");
+        }
+        return parsed;
+    }
+
+    @Override
+    protected Query getWildcardQuery(String field, String termStr) throws ParseException {
+        // A leading wildcard scans the whole term dictionary; *:* still matches everything
+        if (!"*".equals(field) && (termStr.startsWith("*") || termStr.startsWith("?"))) {
+            throw new QueryRejectedException("Leading wildcards are not allowed: " + termStr);
+        }
+        return super.getWildcardQuery(field, termStr);
+    }
+
+    @Override
+    protected Query newFuzzyQuery(Term term, float minimumSimilarity, int prefixLength) {
+        int edits = FuzzyQuery.floatToEdits(minimumSimilarity, term.text().codePointCount(0, term.text().length()));
+        return new FuzzyQuery(term, Math.min(edits, maxFuzzyEdits), prefixLength, maxExpansions, true);
+    }
+
+    private static class ClauseCounter extends QueryVisitor {
+
+        private int clauses;
+        private int expandingTerms;
+
+        @Override
+        public void consumeTerms(Query query, Term... terms) {
+            clauses += terms.length;
+        }
+
+        @Override
+        public void consumeTermsMatching(Query query, String field, Supplier<ByteRunAutomaton> automaton) {
+            clauses++;
+            expandingTerms++;
+        }
+
+        @Override
+        public void visitLeaf(Query query) {
+            clauses++;
+        }
+
+        @Override
+        public QueryVisitor getSubVisitor(BooleanClause.Occur occur, Query parent) {
+            return this;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,324 @@
+package com.searchengine.service;
+
+import com.searchengine.model.Document;
+import com.searchengine.model.IndexOutboxEntry;
+import com.searchengine.repository.DocumentRepository;
+import com.searchengine.repository.IndexOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Applies document changes to the Lucene index through the {@code index_outbox} table. Writers
+ * record an entry in the same transaction as the document row and return without touching
+ * Lucene; a background thread drains the table in id order and applies it in batches. Entries
+ * are deleted only once an index commit made under the index commit policy covers them, so
+ * entries left behind by a crash are replayed at startup.
+ */
+@Service
+public class IndexOutboxService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IndexOutboxService.class);
+    
+    @Autowired
+    private IndexOutboxRepository outboxRepository;
+    
+    @Autowired
+    private DocumentRepository documentRepository;
+    
+    @Autowired
+    private LuceneSearchService luceneSearchService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${search.outbox.batch-size:500}")
+    private int batchSize;
+    
+    // Backstop for wake-ups that were missed, e.g. entries written by another instance
+    @Value("${search.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+    
+    // Drain inside the writing transaction instead of after it; meant for tests
+    @Value("${search.outbox.synchronous:false}")
+    private boolean synchronous;
+    
+    private ScheduledExecutorService drainScheduler;
+    private final AtomicBoolean drainRequested = new AtomicBoolean(false);
+    // Entries up to this id may already be in the index, so their adds are applied as updates;
+    // everything counts as a replay until startup has read the highest id left from the last run
+    private volatile long replayUpToId = Long.MAX_VALUE;
+    // Last id of the page being applied, so a failed batch can be marked for replay
+    private long attemptedUpToId;
+    // Entries not yet applied to the index; kept in memory so metrics and stats never query the table
+    private final AtomicLong pendingEntries = new AtomicLong(0);
+    // Applied batches waiting for an index commit, oldest first; only touched while draining
+    private final Deque<AppliedBatch> uncommitted = new ArrayDeque<>();
+    private final Set<Long> uncommittedIds = new HashSet<>();
+    private Counter appliedCounter;
+    
+    @PostConstruct
+    public void initialize() {
+        appliedCounter = Counter.builder("search.outbox.applied")
+                .description("Outbox entries applied to the index")
+                .register(meterRegistry);
+        Gauge.builder("search.outbox.pending", this, IndexOutboxService::getPendingEntries)
+                .description("Outbox entries waiting to be applied to the index")
+                .register(meterRegistry);
+        
+        drainScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SearchEngine-Outbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        long pending = outboxRepository.count();
+        pendingEntries.addAndGet(pending);
+        Long maxId = outboxRepository.findMaxId();
+        replayUpToId = maxId != null ? maxId : 0;
+        if (pending > 0) {
+            logger.info("Replaying {} index outbox entries left from the last run (up to id {})", pending, maxId);
+        }
+        if (synchronous) {
+            drainQuietly();
+            return;
+        }
+        drainScheduler.scheduleWithFixedDelay(this::drainQuietly, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        drainScheduler.shutdown();
+        drainScheduler.awaitTermination(pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    /**
+     * Records a change to one document in the caller's transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long documentId, IndexOutboxEntry.Operation operation) {
+        enqueueAll(List.of(new IndexOutboxEntry(documentId, operation)));
+    }
+    
+    /**
+     * Records a batch of changes in the caller's transaction. The drainer is woken once the
+     * transaction commits, so it never sees entries whose documents are not visible yet.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueAll(List<IndexOutboxEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        outboxRepository.saveAll(entries);
+        
+        if (synchronous) {
+            pendingEntries.addAndGet(entries.size());
+            drain();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pendingEntries.addAndGet(entries.size());
+                wake();
+            }
+        });
+    }
+    
+    /**
+     * Applies every pending entry on the calling thread and returns how many were applied.
+     */
+    public synchronized int drain() {
+        drainRequested.set(false);
+        int applied = 0;
+        long lastId = 0;
+        AppliedBatch batch;
+        do {
+            long afterId = lastId;
+            try {
+                batch = transactionTemplate.execute(status -> applyBatch(afterId));
+            } catch (RuntimeException e) {
+                // The index may hold part of the batch
+                replayUpToId = Math.max(replayUpToId, attemptedUpToId);
+                throw e;
+            }
+            if (!batch.entryIds.isEmpty()) {
+                uncommitted.add(batch);
+                uncommittedIds.addAll(batch.entryIds);
+                pendingEntries.addAndGet(-batch.entryIds.size());
+            }
+            applied += batch.entryIds.size();
+            lastId = batch.lastId;
+        } while (batch.read >= batchSize);
+        
+        deleteCommittedEntries();
+        return applied;
+    }
+    
+    public long getPendingEntries() {
+        // Briefly negative when a drain applies entries before their writer's afterCommit counted them
+        return Math.max(0, pendingEntries.get());
+    }
+    
+    private void wake() {
+        if (drainRequested.compareAndSet(false, true)) {
+            drainScheduler.execute(this::drainQuietly);
+        }
+    }
+    
+    private void drainQuietly() {
+        try {
+            drain();
+        } catch (Exception e) {
+            logger.error("Error applying index outbox: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Deletes the entries of every applied batch that an index commit has made durable. Nothing
+     * is committed here; that is left to the index commit policy.
+     */
+    private void deleteCommittedEntries() {
+        List<Long> entryIds = new ArrayList<>();
+        int batches = 0;
+        for (AppliedBatch batch : uncommitted) {
+            if (!luceneSearchService.isCommitted(batch.commitMarker)) {
+                break;
+            }
+            entryIds.addAll(batch.entryIds);
+            batches++;
+        }
+        if (entryIds.isEmpty()) {
+            return;
+        }
+        
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < entryIds.size(); from += batchSize) {
+                outboxRepository.deleteAllByIdInBatch(entryIds.subList(from, Math.min(from + batchSize, entryIds.size())));
+            }
+        });
+        for (int i = 0; i < batches; i++) {
+            uncommittedIds.removeAll(uncommitted.poll().entryIds);
+        }
+    }
+    
+    /**
+     * Applies the oldest batch of entries after {@code afterId} that has not been applied yet.
+     * Every entry is applied from the document's current row, so replaying one is harmless: a
+     * document that still exists is indexed as it is now and one that is gone is deleted.
+     */
+    private AppliedBatch applyBatch(long afterId) {
+        List<IndexOutboxEntry> page = outboxRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+                PageRequest.of(0, batchSize));
+        if (page.isEmpty()) {
+            return new AppliedBatch(0, afterId, List.of(), 0);
+        }
+        long lastId = page.get(page.size() - 1).getId();
+        attemptedUpToId = lastId;
+        // Entries applied earlier stay in the table until a commit covers them
+        List<IndexOutboxEntry> entries = page.stream()
+            .filter(entry -> !uncommittedIds.contains(entry.getId()))
+            .collect(Collectors.toList());
+        if (entries.isEmpty()) {
+            return new AppliedBatch(page.size(), lastId, List.of(), 0);
+        }
+        
+        // Several changes to one document collapse into one; only pure adds that cannot be in the
+        // index yet skip the delete-by-id
+        long replayUpTo = replayUpToId;
+        Map<Long, Boolean> addOnly = new LinkedHashMap<>();
+        for (IndexOutboxEntry entry : entries) {
+            addOnly.merge(entry.getDocumentId(),
+                    entry.getOperation() == IndexOutboxEntry.Operation.ADD && entry.getId() > replayUpTo,
+                    Boolean::logicalAnd);
+        }
+        Map<Long, Document> documents = documentRepository.findAllById(addOnly.keySet()).stream()
+            .collect(Collectors.toMap(Document::getId, Function.identity()));
+        
+        try {
+            List<Document> added = new ArrayList<>();
+            List<Long> indexedIds = new ArrayList<>();
+            for (Map.Entry<Long, Boolean> change : addOnly.entrySet()) {
+                Document document = documents.get(change.getKey());
+                if (document == null) {
+                    luceneSearchService.deleteDocument(change.getKey());
+                    continue;
+                }
+                if (change.getValue()) {
+                    added.add(document);
+                } else {
+                    luceneSearchService.updateDocument(document);
+                }
+                indexedIds.add(document.getId());
+            }
+            luceneSearchService.indexDocuments(added);
+            
+            if (!indexedIds.isEmpty()) {
+                documentRepository.markIndexed(indexedIds, LocalDateTime.now());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        
+        appliedCounter.increment(entries.size());
+        logger.debug("Applied {} outbox entries for {} documents", entries.size(), addOnly.size());
+        // Read after the writes, so any commit started from here on covers them
+        return new AppliedBatch(page.size(), lastId,
+                entries.stream().map(IndexOutboxEntry::getId).collect(Collectors.toList()),
+                luceneSearchService.getCommitMarker());
+    }
+    
+    private static final class AppliedBatch {
+        private final int read;
+        private final long lastId;
+        private final List<Long> entryIds;
+        private final long commitMarker;
+        
+        private AppliedBatch(int read, long lastId, List<Long> entryIds, long commitMarker) {
+            this.read = read;
+            this.lastId = lastId;
+            this.entryIds = entryIds;
+            this.commitMarker = commitMarker;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+package com.searchengine.service;
+
+import com.searchengine.dto.IndexingJobDto;
+import com.searchengine.model.IndexingJob;
+import com.searchengine.repository.IndexingJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Registry of background indexing jobs. Running jobs live in memory and are written to the
+ * indexing_jobs table periodically and when they finish; jobs still marked running at
+ * startup were cut short by a restart and are flagged as interrupted.
+ */
+@Service
+@Transactional
+public class IndexingJobService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IndexingJobService.class);
+    
+    @Autowired
+    private IndexingJobRepository indexingJobRepository;
+    
+    private final Map<String, JobProgress> runningJobs = new ConcurrentHashMap<>();
+    
+    // The row is committed before the job is registered, so the scheduled snapshot never inserts it twice
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public synchronized JobProgress startJob(String type, String source) {
+        JobProgress job = new JobProgress(UUID.randomUUID().toString(), type, source);
+        indexingJobRepository.save(job.snapshot());
+        runningJobs.put(job.getId(), job);
+        return job;
+    }
+    
+    public synchronized void finishJob(JobProgress job) {
+        job.complete();
+        indexingJobRepository.save(job.snapshot());
+        runningJobs.remove(job.getId());
+    }
+    
+    @Transactional(readOnly = true)
+    public Optional<IndexingJobDto> getJob(String jobId) {
+        JobProgress running = runningJobs.get(jobId);
+        if (running != null) {
+            return Optional.of(IndexingJobDto.from(running.snapshot()));
+        }
+        return indexingJobRepository.findById(jobId).map(IndexingJobDto::from);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<IndexingJobDto> getRecentJobs(int limit) {
+        return indexingJobRepository.findAllByOrderByStartedAtDesc(PageRequest.of(0, limit)).stream()
+            .map(job -> {
+                JobProgress running = runningJobs.get(job.getId());
+                return IndexingJobDto.from(running != null ? running.snapshot() : job);
+            })
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Returns the checkpoint of the most recent job of this type if that job stopped before
+     * finishing (interrupted, failed or cancelled), so a new run can pick up after it.
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> findResumeCheckpoint(String type) {
+        return indexingJobRepository.findFirstByTypeOrderByStartedAtDesc(type)
+            .filter(job -> job.getStatus() != IndexingJob.Status.COMPLETED && job.getStatus() != IndexingJob.Status.RUNNING)
+            .filter(job -> !runningJobs.containsKey(job.getId()))
+            .map(IndexingJob::getCheckpoint)
+            .map(Long::valueOf)
+            .filter(checkpoint -> checkpoint > 0);
+    }
+    
+    /**
+     * Deletes the finished jobs of a type except the {@code keep} most recent ones, for job types
+     * started often enough that their rows would otherwise pile up. Returns how many were deleted.
+     */
+    public synchronized int pruneFinishedJobs(String type, int keep) {
+        List<IndexingJob> newest = indexingJobRepository.findByTypeAndStatusNotOrderByStartedAtDesc(
+            type, IndexingJob.Status.RUNNING, PageRequest.of(0, Math.max(1, keep)));
+        if (newest.size() < Math.max(1, keep)) {
+            return 0;
+        }
+        return indexingJobRepository.deleteFinishedExcept(type, IndexingJob.Status.RUNNING,
+            newest.stream().map(IndexingJob::getId).collect(Collectors.toList()));
+    }
+    
+    /**
+     * Requests cancellation of a running job. Returns false when the job is not running here.
+     */
+    public boolean cancelJob(String jobId) {
+        JobProgress running = runningJobs.get(jobId);
+        if (running == null) {
+            return false;
+        }
+        running.cancel();
+        logger.info("Cancellation requested for job {}", jobId);
+        return true;
+    }
+    
+    @Scheduled(fixedDelayString = "${search.jobs.persist-interval-ms:2000}")
+    public synchronized void persistRunningJobs() {
+        if (runningJobs.isEmpty()) {
+            return;
+        }
+        indexingJobRepository.saveAll(runningJobs.values().stream()
+            .filter(job -> !job.isFinished())
+            .map(JobProgress::snapshot)
+            .collect(Collectors.toList()));
+    }
+    
+    // Runs before other startup listeners, which may register jobs of their own
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void markInterruptedJobs() {
+        int interrupted = indexingJobRepository.updateStatus(
+            IndexingJob.Status.RUNNING, IndexingJob.Status.INTERRUPTED, LocalDateTime.now());
+        if (interrupted > 0) {
+            logger.warn("Marked {} indexing jobs left running by a previous instance as interrupted", interrupted);
+        }
+    }
+}
\ No newline at end of file
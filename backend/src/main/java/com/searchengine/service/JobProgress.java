@@ -0,0 +1,203 @@
+package com.searchengine.service;
+
+import com.searchengine.model.IndexingJob;
+import com.searchengine.model.IndexingJob.Status;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live progress of a background indexing job. Counters are updated concurrently by the
+ * pipeline workers; {@link IndexingJobService} snapshots them into an {@link IndexingJob} row.
+ */
+public class JobProgress {
+    
+    /** Per-item errors kept for inspection; later ones are only counted. */
+    static final int MAX_ERROR_SAMPLES = 20;
+    
+    private final String id;
+    private final String type;
+    private final String source;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+    private volatile Status status = Status.RUNNING;
+    private volatile String errorMessage;
+    private volatile boolean cancelRequested;
+    private volatile Long checkpoint;
+    
+    private final AtomicLong total = new AtomicLong(-1);
+    private final AtomicLong discovered = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong processedBytes = new AtomicLong();
+    private final AtomicLong added = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+    private final AtomicLong removed = new AtomicLong();
+    private final List<String> errorSamples = new ArrayList<>();
+    
+    public JobProgress(String id, String type, String source) {
+        this.id = id;
+        this.type = type;
+        this.source = source;
+    }
+    
+    public void recordDiscovered() {
+        discovered.incrementAndGet();
+    }
+    
+    public void setTotal(long count) {
+        total.set(count);
+    }
+    
+    /**
+     * Records the position up to which every item is done; a resumed job starts after it.
+     */
+    public void setCheckpoint(long position) {
+        checkpoint = position;
+    }
+    
+    public void recordProcessed(int count, long bytes) {
+        processed.addAndGet(count);
+        processedBytes.addAndGet(bytes);
+    }
+    
+    /**
+     * Records how many of the processed items were new to the index and how many replaced an
+     * earlier version.
+     */
+    public void recordAddedAndChanged(int addedCount, int changedCount) {
+        added.addAndGet(addedCount);
+        changed.addAndGet(changedCount);
+    }
+    
+    /**
+     * Records an item that was skipped because it had not changed; it counts as processed.
+     */
+    public void recordUnchanged() {
+        unchanged.incrementAndGet();
+        processed.incrementAndGet();
+    }
+    
+    public void recordRemoved(int count) {
+        removed.addAndGet(count);
+    }
+    
+    public void recordError(String item, String message) {
+        recordErrors(1, item, message);
+    }
+    
+    public void recordErrors(int count, String item, String message) {
+        failed.addAndGet(count);
+        synchronized (errorSamples) {
+            if (errorSamples.size() < MAX_ERROR_SAMPLES) {
+                errorSamples.add(item + ": " + message);
+            }
+        }
+    }
+    
+    /**
+     * Asks the workers to stop picking up new items. Work already in flight still completes.
+     */
+    public void cancel() {
+        cancelRequested = true;
+    }
+    
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+    
+    public void complete() {
+        if (status == Status.RUNNING) {
+            status = cancelRequested ? Status.CANCELLED : Status.COMPLETED;
+        }
+        finishedAt = LocalDateTime.now();
+    }
+    
+    public void fail(String message) {
+        status = Status.FAILED;
+        errorMessage = message;
+    }
+    
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+    
+    /**
+     * Copies the current state into a job row for persisting.
+     */
+    public IndexingJob snapshot() {
+        IndexingJob job = new IndexingJob();
+        job.setId(id);
+        job.setType(type);
+        job.setSource(source);
+        job.setStatus(isFinished() ? status : Status.RUNNING);
+        job.setTotalItems(total.get() >= 0 ? total.get() : null);
+        job.setProcessedItems(processed.get());
+        job.setFailedItems(failed.get());
+        job.setProcessedBytes(processedBytes.get());
+        job.setAddedItems(added.get());
+        job.setChangedItems(changed.get());
+        job.setUnchangedItems(unchanged.get());
+        job.setRemovedItems(removed.get());
+        job.setErrorMessage(errorMessage);
+        job.setCheckpoint(checkpoint != null ? checkpoint.toString() : null);
+        synchronized (errorSamples) {
+            job.setErrorSamples(errorSamples.isEmpty() ? null : String.join("\n", errorSamples));
+        }
+        job.setStartedAt(startedAt);
+        job.setUpdatedAt(LocalDateTime.now());
+        job.setFinishedAt(finishedAt);
+        return job;
+    }
+    
+    public String getId() {
+        return id;
+    }
+    
+    public String getType() {
+        return type;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public long getTotal() {
+        return total.get();
+    }
+    
+    public long getDiscovered() {
+        return discovered.get();
+    }
+    
+    public long getProcessed() {
+        return processed.get();
+    }
+    
+    public long getFailed() {
+        return failed.get();
+    }
+    
+    public long getAdded() {
+        return added.get();
+    }
+    
+    public long getChanged() {
+        return changed.get();
+    }
+    
+    public long getUnchanged() {
+        return unchanged.get();
+    }
+    
+    public long getRemoved() {
+        return removed.get();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,143 @@
+package com.searchengine.service;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.search.ControlledRealTimeReopenThread;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.search.SearcherFactory;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One physical index directory with its writer and the near-real-time searchers opened from it.
+ * {@link LuceneSearchService} serves from one of these and builds replacements in another.
+ */
+class LuceneIndex implements Closeable {
+
+    private final Path path;
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final Sort indexSort;
+    private final SearcherManager searcherManager;
+    private final AtomicLong lastWriteGeneration = new AtomicLong(-1);
+    private ControlledRealTimeReopenThread<IndexSearcher> reopenThread;
+
+    /**
+     * @param indexSort order documents are kept in within each segment, or null for insertion
+     *                  order. An existing index keeps the order it was built with, since segments
+     *                  cannot be re-sorted in place; a rebuild applies the requested one.
+     */
+    LuceneIndex(Path path, Analyzer analyzer, IndexWriterConfig.OpenMode openMode, SearcherFactory searcherFactory,
+                Sort indexSort) throws IOException {
+        this.path = path;
+        this.directory = FSDirectory.open(path);
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(openMode);
+        try {
+            if (openMode != IndexWriterConfig.OpenMode.CREATE && DirectoryReader.indexExists(directory)) {
+                indexSort = existingIndexSort(directory, indexSort);
+            }
+            this.indexSort = indexSort;
+            if (indexSort != null) {
+                config.setIndexSort(indexSort);
+            }
+            this.writer = new IndexWriter(directory, config);
+            this.searcherManager = new SearcherManager(writer, searcherFactory);
+        } catch (IOException | RuntimeException e) {
+            directory.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Starts reopening searchers in the background and reports each refresh to {@code listener}.
+     * Indexes being built skip this until they go live, so bulk loading pays for no refreshes.
+     */
+    void startRefreshing(ReferenceManager.RefreshListener listener, long maxStaleMs, long minStaleMs) {
+        searcherManager.addListener(listener);
+        reopenThread = new ControlledRealTimeReopenThread<>(writer, searcherManager,
+                maxStaleMs / 1000.0, minStaleMs / 1000.0);
+        reopenThread.setName("SearchEngine-NRT-Reopen-" + path.getFileName());
+        reopenThread.setDaemon(true);
+        reopenThread.start();
+    }
+
+    private static Sort existingIndexSort(Directory directory, Sort requested) throws IOException {
+        SegmentInfos segments = SegmentInfos.readLatestCommit(directory);
+        // Every segment of an index has the same sort
+        return segments.size() > 0 ? segments.info(0).info.getIndexSort() : requested;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    Sort getIndexSort() {
+        return indexSort;
+    }
+
+    IndexWriter getWriter() {
+        return writer;
+    }
+
+    SearcherManager getSearcherManager() {
+        return searcherManager;
+    }
+
+    void recordWriteGeneration(long generation) {
+        lastWriteGeneration.accumulateAndGet(generation, Math::max);
+    }
+
+    /**
+     * Blocks until the latest recorded write is visible to searches or {@code timeoutMs} passes.
+     *
+     * @return false if the wait timed out
+     */
+    boolean waitForLatestWrite(long timeoutMs) throws InterruptedException {
+        long generation = lastWriteGeneration.get();
+        if (generation < 0 || reopenThread == null) {
+            return true;
+        }
+        return reopenThread.waitForGeneration(generation, (int) timeoutMs);
+    }
+
+    /**
+     * Closes the index and commits whatever the commit policy has not made durable yet.
+     * Searchers already handed out stay usable until they are released.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (reopenThread != null) {
+                reopenThread.close();
+            }
+            searcherManager.close();
+            writer.close();
+        } finally {
+            directory.close();
+        }
+    }
+
+    /**
+     * Discards everything written since the last commit and closes the index.
+     */
+    void abandon() throws IOException {
+        try {
+            searcherManager.close();
+            writer.rollback();
+        } finally {
+            directory.close();
+        }
+    }
+}
\ No newline at end of file
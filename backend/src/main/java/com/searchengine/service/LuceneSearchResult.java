@@ -0,0 +1,69 @@
+package com.searchengine.service;
+
+import com.searchengine.dto.SearchResultDto;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TotalHits;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of Lucene hits together with the information needed to fetch the next page.
+ */
+public class LuceneSearchResult {
+    private final List<SearchResultDto> results;
+    private final long totalHits;
+    private final boolean totalHitsExact;
+    private final ScoreDoc lastHit;
+    private final boolean timedOut;
+    private final Map<String, Map<String, Long>> facets;
+
+    public LuceneSearchResult(List<SearchResultDto> results, long totalHits, ScoreDoc lastHit) {
+        this(results, new TotalHits(totalHits, TotalHits.Relation.EQUAL_TO), lastHit, false, null);
+    }
+
+    public LuceneSearchResult(List<SearchResultDto> results, TotalHits totalHits, ScoreDoc lastHit, boolean timedOut,
+                              Map<String, Map<String, Long>> facets) {
+        this.results = results;
+        this.totalHits = totalHits.value;
+        this.totalHitsExact = totalHits.relation == TotalHits.Relation.EQUAL_TO;
+        this.lastHit = lastHit;
+        this.timedOut = timedOut;
+        this.facets = facets;
+    }
+
+    public List<SearchResultDto> getResults() {
+        return results;
+    }
+
+    public long getTotalHits() {
+        return totalHits;
+    }
+
+    /**
+     * False when counting stopped at the total-hits threshold, so {@link #getTotalHits()} is a
+     * lower bound.
+     */
+    public boolean isTotalHitsExact() {
+        return totalHitsExact;
+    }
+
+    public ScoreDoc getLastHit() {
+        return lastHit;
+    }
+
+    /**
+     * True when the time budget ran out before every segment was searched, so the hits and the
+     * total are partial.
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * Hit counts per facet value over all hits of the query, or null when facets were not requested.
+     */
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+}
\ No newline at end of file
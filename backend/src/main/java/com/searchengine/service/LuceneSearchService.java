@@ -2,154 +2,1137 @@ package com.searchengine.service;
 
 import com.searchengine.dto.SearchResultDto;
 import com.searchengine.model.Document;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Field;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedDocValuesField;
 import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
 import org.apache.lucene.index.DirectoryReader;
-import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
-import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.QueryTimeoutImpl;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.StoredFieldVisitor;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.CollectorManager;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MultiCollectorManager;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ReferenceManager;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermInSetQuery;
 import org.apache.lucene.search.TopDocs;
-import org.apache.lucene.search.highlight.*;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.AlreadyClosedException;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class LuceneSearchService {
     
     private static final Logger logger = LoggerFactory.getLogger(LuceneSearchService.class);
     
+    // Bump whenever the field layout changes in a way existing segments cannot accept
+    static final int SCHEMA_VERSION = 7;
+    private static final String SCHEMA_VERSION_KEY = "schemaVersion";
+    
+    // Pointer files in the index root naming the live index and the one kept for rollback
+    private static final String ACTIVE_POINTER = "ACTIVE";
+    private static final String PREVIOUS_POINTER = "PREVIOUS";
+    private static final String REBUILD_DIRECTORY_PREFIX = "index-";
+    
+    // Characters of the lower-cased title kept for sorting
+    private static final int TITLE_SORT_LENGTH = 256;
+    
+    // Shared by the index sort and newest-first queries: early termination needs them to be equal
+    private static final SortField CREATED_AT_DESC = new SortField("createdAt", SortField.Type.LONG, true);
+    // Last key of every sort, so no two hits tie and cursors never depend on docIDs
+    private static final SortField ID_ASC = new SortField("id", SortField.Type.LONG);
+    
+    // Content keeps offsets in its postings so highlighting never re-tokenizes stored text
+    private static final FieldType CONTENT_FIELD_TYPE = new FieldType(TextField.TYPE_STORED);
+    static {
+        CONTENT_FIELD_TYPE.setIndexOptions(IndexOptions.DOCS_AND_FREQS_AND_POSITIONS_AND_OFFSETS);
+        CONTENT_FIELD_TYPE.freeze();
+    }
+    
     @Value("${search.index.directory:./lucene-index}")
     private String indexDirectory;
     
-    private Directory directory;
+    // Upper bound on how long an indexed change may stay invisible to searches
+    @Value("${search.index.refresh.max-stale-ms:1000}")
+    private long maxStaleMs;
+    
+    // Reopen interval used while a caller is waiting for a specific write to become visible
+    @Value("${search.index.refresh.min-stale-ms:25}")
+    private long minStaleMs;
+    
+    // When enabled, searches block (up to max-stale-ms) until the latest write is visible
+    @Value("${search.index.refresh.wait-for-writes:false}")
+    private boolean waitForWrites;
+    
+    // Commit once this many write operations are pending (0 disables the count trigger)
+    @Value("${search.index.commit.max-pending-ops:1000}")
+    private int commitMaxPendingOps;
+    
+    // Commit pending operations at this interval (0 disables the time trigger)
+    @Value("${search.index.commit.interval-ms:5000}")
+    private long commitIntervalMs;
+    
+    // Characters of each document considered for highlighting
+    @Value("${search.highlight.max-length:50000}")
+    private int highlightMaxLength;
+    
+    // Time a single request may spend highlighting before falling back to leading snippets
+    @Value("${search.highlight.budget-ms:100}")
+    private long highlightBudgetMs;
+    
+    // Keep each segment sorted newest first so newest-first searches stop after the first hits;
+    // an existing index picks this up when it is next rebuilt
+    @Value("${search.index.sort-by-created-at:false}")
+    private boolean sortByCreatedAt;
+    
+    // Threads scoring segment slices of queries; 0 uses one per core and 1 searches sequentially
+    @Value("${search.executor.threads:0}")
+    private int searchThreads;
+    
+    // Slice tasks waiting for a thread; beyond this a query runs its slices on the request thread
+    @Value("${search.executor.queue-capacity:1000}")
+    private int searchQueueCapacity;
+    
+    @Value("${search.executor.slice.max-docs:50000}")
+    private int sliceMaxDocs;
+    
+    @Value("${search.executor.slice.max-segments:5}")
+    private int sliceMaxSegments;
+    
+    // Time budget of a search when the request does not set one, and the most a request may ask for
+    @Value("${search.query.timeout-ms:2000}")
+    private long queryTimeoutMs;
+    
+    @Value("${search.query.max-timeout-ms:10000}")
+    private long queryMaxTimeoutMs;
+    
+    // Clauses per query, counting each field a term is searched in
+    @Value("${search.query.max-clauses:256}")
+    private int queryMaxClauses;
+    
+    // Wildcard, prefix, regexp and fuzzy clauses per query
+    @Value("${search.query.max-expanding-terms:10}")
+    private int queryMaxExpandingTerms;
+    
+    // Index terms each of those clauses may expand to
+    @Value("${search.query.max-expansions:50}")
+    private int queryMaxExpansions;
+    
+    @Value("${search.query.max-fuzzy-edits:1}")
+    private int queryMaxFuzzyEdits;
+    
+    // Hits counted exactly; past this the total is a lower bound and top-k collection may skip
+    // blocks of documents that cannot make the page
+    @Value("${search.query.total-hits-threshold:1000}")
+    private int totalHitsThreshold;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private Path indexRoot;
     private StandardAnalyzer analyzer;
-    private IndexWriter indexWriter;
+    private volatile LuceneIndex activeIndex;
+    private volatile Path previousIndexPath;
+    private ScheduledExecutorService commitScheduler;
+    private ThreadPoolExecutor searchExecutor;
+    private SlicedSearcherFactory searcherFactory;
+    
+    private volatile int indexSchemaVersion;
+    
+    // Index being built by a blue/green rebuild; live writes are applied to it as well
+    private volatile LuceneIndex rebuildIndex;
+    // Ids a live write touched during the rebuild; the rebuild stream must not overwrite them
+    private final Set<Long> rebuildTouchedIds = ConcurrentHashMap.newKeySet();
+    private final Object[] rebuildLocks = new Object[64];
+    // Writes share the read side; switching the live index takes the write side
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    
+    private final AtomicLong pendingOperations = new AtomicLong(0);
+    // Commits are numbered as they start; a write is durable once a commit numbered after it finished
+    private final AtomicLong commitsStarted = new AtomicLong(0);
+    private final AtomicLong lastDurableCommit = new AtomicLong(0);
+    private final AtomicLong oldestUnrefreshedWriteNanos = new AtomicLong(0);
+    private final AtomicLong searcherGeneration = new AtomicLong(0);
+    private Timer refreshTimer;
+    private Timer refreshLagTimer;
+    private Counter refreshCounter;
+    private Timer commitTimer;
+    private Counter highlightBudgetExhausted;
+    private Counter searchCallerRuns;
+    private Counter queriesRejected;
+    private Counter queriesTimedOut;
+    
+    {
+        for (int i = 0; i < rebuildLocks.length; i++) {
+            rebuildLocks[i] = new Object();
+        }
+    }
     
     @PostConstruct
     public void initialize() throws IOException {
         analyzer = new StandardAnalyzer();
-        directory = FSDirectory.open(Paths.get(indexDirectory));
+        indexRoot = Paths.get(indexDirectory).toAbsolutePath().normalize();
+        Files.createDirectories(indexRoot);
+        registerMetrics();
+        searcherFactory = new SlicedSearcherFactory(createSearchExecutor(), sliceMaxDocs, sliceMaxSegments);
         
-        IndexWriterConfig config = new IndexWriterConfig(analyzer);
-        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
-        indexWriter = new IndexWriter(directory, config);
+        // Without a pointer the index lives directly in the root, as it did before rebuilds existed
+        Path activePath = readPointer(ACTIVE_POINTER);
+        activeIndex = new LuceneIndex(activePath != null ? activePath : indexRoot, analyzer,
+                IndexWriterConfig.OpenMode.CREATE_OR_APPEND, searcherFactory, configuredIndexSort());
+        previousIndexPath = readPointer(PREVIOUS_POINTER);
+        deleteAbandonedRebuilds();
+        if (!Objects.equals(activeIndex.getIndexSort(), configuredIndexSort())) {
+            logger.warn("Index at {} is sorted by {} instead of {}; rebuild it to apply the configured sort",
+                    activeIndex.getPath(), activeIndex.getIndexSort(), configuredIndexSort());
+        }
+        
+        indexSchemaVersion = readSchemaVersion(activeIndex.getWriter());
+        if (indexSchemaVersion < SCHEMA_VERSION) {
+            logger.warn("Index at {} uses schema version {} (current {}); it will be rebuilt from the database",
+                    activeIndex.getPath(), indexSchemaVersion, SCHEMA_VERSION);
+        }
         
-        logger.info("Lucene search service initialized with index directory: {}", indexDirectory);
+        // Near-real-time searchers are opened from the writer and shared across requests
+        activeIndex.startRefreshing(new RefreshMetricsListener(), maxStaleMs, minStaleMs);
+        
+        if (commitIntervalMs > 0) {
+            commitScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "SearchEngine-Index-Commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            commitScheduler.scheduleWithFixedDelay(this::commitPendingQuietly,
+                    commitIntervalMs, commitIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        
+        logger.info("Lucene search service initialized with index directory: {} (max staleness {}ms, " +
+                "commit every {} ops / {}ms)", activeIndex.getPath(), maxStaleMs, commitMaxPendingOps, commitIntervalMs);
+    }
+    
+    /**
+     * Creates the pool that searches score segment slices on, kept apart from the indexing and
+     * async executors. Returns null when searches should run sequentially.
+     */
+    private ThreadPoolExecutor createSearchExecutor() {
+        int threads = searchThreads > 0 ? searchThreads : Runtime.getRuntime().availableProcessors();
+        if (threads <= 1) {
+            logger.info("Searches score segments sequentially");
+            return null;
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        // A saturated pool runs the slice on the caller, which also keeps searches working during shutdown
+        searchExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(searchQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "SearchEngine-Search-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, (task, executor) -> {
+                    searchCallerRuns.increment();
+                    task.run();
+                });
+        Gauge.builder("search.executor.queue.size", searchExecutor, executor -> executor.getQueue().size())
+                .description("Segment slice tasks waiting for a search thread")
+                .register(meterRegistry);
+        logger.info("Searches score segments on {} threads (slices of up to {} docs / {} segments)",
+                threads, sliceMaxDocs, sliceMaxSegments);
+        return searchExecutor;
     }
     
     @PreDestroy
     public void cleanup() throws IOException {
-        if (indexWriter != null) {
-            indexWriter.close();
+        if (commitScheduler != null) {
+            commitScheduler.shutdown();
+        }
+        if (rebuildIndex != null) {
+            abortRebuild();
         }
-        if (directory != null) {
-            directory.close();
+        if (activeIndex != null) {
+            activeIndex.close();
         }
         analyzer.close();
+        if (searchExecutor != null) {
+            searchExecutor.shutdown();
+        }
         logger.info("Lucene search service cleaned up");
     }
     
     public void indexDocument(Document document) throws IOException {
-        org.apache.lucene.document.Document luceneDoc = new org.apache.lucene.document.Document();
-        
-        luceneDoc.add(new StoredField("id", document.getId().toString()));
-        luceneDoc.add(new TextField("title", document.getTitle() != null ? document.getTitle() : "", Field.Store.YES));
-        luceneDoc.add(new TextField("content", document.getContent() != null ? document.getContent() : "", Field.Store.YES));
-        luceneDoc.add(new StoredField("url", document.getUrl() != null ? document.getUrl() : ""));
-        luceneDoc.add(new StoredField("contentType", document.getContentType() != null ? document.getContentType() : ""));
-        
-        indexWriter.addDocument(luceneDoc);
-        indexWriter.commit();
+        org.apache.lucene.document.Document luceneDoc = toLuceneDocument(document);
+        swapLock.readLock().lock();
+        try {
+            if (writesToActiveIndex()) {
+                recordWrite(activeIndex.getWriter().addDocument(luceneDoc));
+            }
+            applyToRebuild(document.getId(), writer -> writer.updateDocument(idTerm(document.getId()), luceneDoc));
+        } finally {
+            swapLock.readLock().unlock();
+        }
         
         logger.debug("Indexed document: {} (ID: {})", document.getTitle(), document.getId());
     }
     
+    /**
+     * Adds a batch of documents that are not in the index yet with a single addDocuments call.
+     */
+    public void indexDocuments(List<Document> documents) throws IOException {
+        if (documents.isEmpty()) {
+            return;
+        }
+        List<org.apache.lucene.document.Document> luceneDocs = new ArrayList<>(documents.size());
+        for (Document document : documents) {
+            luceneDocs.add(toLuceneDocument(document));
+        }
+        swapLock.readLock().lock();
+        try {
+            if (writesToActiveIndex()) {
+                recordWrite(activeIndex.getWriter().addDocuments(luceneDocs), documents.size());
+            }
+            for (int i = 0; i < documents.size(); i++) {
+                org.apache.lucene.document.Document luceneDoc = luceneDocs.get(i);
+                Long documentId = documents.get(i).getId();
+                applyToRebuild(documentId, writer -> writer.updateDocument(idTerm(documentId), luceneDoc));
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        
+        logger.debug("Indexed batch of {} documents", documents.size());
+    }
+    
     public void updateDocument(Document document) throws IOException {
-        deleteDocument(document.getId());
-        indexDocument(document);
+        // Atomic delete-by-id plus add, so a document never appears twice or goes missing
+        org.apache.lucene.document.Document luceneDoc = toLuceneDocument(document);
+        Term idTerm = idTerm(document.getId());
+        swapLock.readLock().lock();
+        try {
+            if (writesToActiveIndex()) {
+                recordWrite(activeIndex.getWriter().updateDocument(idTerm, luceneDoc));
+            }
+            applyToRebuild(document.getId(), writer -> writer.updateDocument(idTerm, luceneDoc));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        
+        logger.debug("Updated document: {} (ID: {})", document.getTitle(), document.getId());
     }
     
     public void deleteDocument(Long documentId) throws IOException {
-        indexWriter.deleteDocuments(new org.apache.lucene.index.Term("id", documentId.toString()));
-        indexWriter.commit();
+        swapLock.readLock().lock();
+        try {
+            if (writesToActiveIndex()) {
+                recordWrite(activeIndex.getWriter().deleteDocuments(idTerm(documentId)));
+            }
+            applyToRebuild(documentId, writer -> writer.deleteDocuments(idTerm(documentId)));
+        } finally {
+            swapLock.readLock().unlock();
+        }
         logger.debug("Deleted document with ID: {}", documentId);
     }
     
-    public List<SearchResultDto> search(String queryString, int maxResults) throws IOException, ParseException {
-        if (queryString == null || queryString.trim().isEmpty()) {
-            return new ArrayList<>();
+    private org.apache.lucene.document.Document toLuceneDocument(Document document) {
+        org.apache.lucene.document.Document luceneDoc = new org.apache.lucene.document.Document();
+        String content = document.getContent() != null ? document.getContent() : "";
+        
+        // Exact-match primary key: indexed for delete/update by term, doc values for cheap lookups
+        luceneDoc.add(new StringField("id", document.getId().toString(), Field.Store.YES));
+        luceneDoc.add(new NumericDocValuesField("id", document.getId()));
+        String title = document.getTitle() != null ? document.getTitle() : "";
+        luceneDoc.add(new TextField("title", title, Field.Store.YES));
+        luceneDoc.add(new SortedDocValuesField("titleSort", new BytesRef(titleSortKey(title))));
+        luceneDoc.add(new StoredField("url", document.getUrl() != null ? document.getUrl() : ""));
+        
+        // Result metadata lives in doc values so the search path never has to query the database;
+        // the filterable fields are also indexed as terms and points for selective filters
+        if (document.getContentType() != null) {
+            luceneDoc.add(new StringField("contentType", document.getContentType(), Field.Store.NO));
+            luceneDoc.add(new SortedDocValuesField("contentType", new BytesRef(document.getContentType())));
+        }
+        if (document.getFileSize() != null) {
+            luceneDoc.add(new LongPoint("fileSize", document.getFileSize()));
+            luceneDoc.add(new NumericDocValuesField("fileSize", document.getFileSize()));
+        }
+        if (document.getCreatedAt() != null) {
+            long createdAt = toEpochMillis(document.getCreatedAt());
+            luceneDoc.add(new LongPoint("createdAt", createdAt));
+            luceneDoc.add(new NumericDocValuesField("createdAt", createdAt));
+        }
+        if (document.getUpdatedAt() != null) {
+            luceneDoc.add(new NumericDocValuesField("updatedAt", toEpochMillis(document.getUpdatedAt())));
+        }
+        
+        // Large documents keep a bounded prefix for snippets so hits never need the full text
+        if (content.length() > highlightMaxLength) {
+            luceneDoc.add(new StoredField("snippetSource", content.substring(0, highlightMaxLength)));
+        }
+        // Stored last: a projection without content stops reading before these bytes are decompressed
+        luceneDoc.add(new Field("content", content, CONTENT_FIELD_TYPE));
+        
+        return luceneDoc;
+    }
+    
+    private static String titleSortKey(String title) {
+        String key = title.strip().toLowerCase(Locale.ROOT);
+        return key.length() > TITLE_SORT_LENGTH ? key.substring(0, TITLE_SORT_LENGTH) : key;
+    }
+    
+    private Sort configuredIndexSort() {
+        return sortByCreatedAt ? new Sort(CREATED_AT_DESC, ID_ASC) : null;
+    }
+    
+    /**
+     * Lucene sort for a requested order. Every order breaks ties by document id rather than by
+     * docID, which changes when segments merge, so a cursor stays valid across index refreshes.
+     * Relevance still prunes by score, as the score is its first key.
+     */
+    private static Sort luceneSort(SearchSort sort) {
+        return switch (sort) {
+            case RELEVANCE -> new Sort(SortField.FIELD_SCORE, ID_ASC);
+            case CREATED_AT_DESC -> new Sort(CREATED_AT_DESC, ID_ASC);
+            case CREATED_AT_ASC -> new Sort(new SortField("createdAt", SortField.Type.LONG), ID_ASC);
+            case TITLE -> {
+                SortField title = new SortField("titleSort", SortField.Type.STRING);
+                title.setMissingValue(SortField.STRING_LAST);
+                yield new Sort(title, ID_ASC);
+            }
+        };
+    }
+    
+    private static Term idTerm(Long documentId) {
+        return new Term("id", documentId.toString());
+    }
+    
+    public boolean isMigrationRequired() {
+        return indexSchemaVersion < SCHEMA_VERSION;
+    }
+    
+    // Called under the swap read lock. An outdated index may reject the current field layout, so it
+    // is frozen until the migration swaps it out and writes only reach the migrated index through
+    // the rebuild mirror. Without a migration running they would be lost, so they fail instead and
+    // callers leave the documents unindexed
+    private boolean writesToActiveIndex() throws IOException {
+        if (!isMigrationRequired()) {
+            return true;
         }
+        if (rebuildIndex == null) {
+            throw new IOException("The index is waiting for its schema migration; write not applied");
+        }
+        return false;
+    }
+    
+    /**
+     * Starts migrating an index written with an older schema by rebuilding it in a fresh
+     * directory. The outdated index keeps serving searches until {@link #completeRebuild} swaps
+     * the new one in; a migration interrupted by a restart starts over from the outdated index.
+     */
+    public synchronized void beginMigration() throws IOException {
+        if (!isMigrationRequired()) {
+            throw new IllegalStateException("The index already uses schema version " + SCHEMA_VERSION);
+        }
+        startRebuild();
+        logger.info("Migrating index from schema version {} to {}", indexSchemaVersion, SCHEMA_VERSION);
+    }
+    
+    private static Iterable<Map.Entry<String, String>> currentSchemaCommitData() {
+        return Map.of(SCHEMA_VERSION_KEY, String.valueOf(SCHEMA_VERSION)).entrySet();
+    }
+    
+    private static int readSchemaVersion(IndexWriter writer) {
+        if (writer.getDocStats().maxDoc == 0) {
+            // Nothing to migrate, stamp the current version on the next commit
+            writer.setLiveCommitData(currentSchemaCommitData());
+            return SCHEMA_VERSION;
+        }
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (SCHEMA_VERSION_KEY.equals(entry.getKey())) {
+                    return Integer.parseInt(entry.getValue());
+                }
+            }
+        }
+        return 1;
+    }
+    
+    /**
+     * Starts a blue/green rebuild into a fresh directory next to the live index. Searches keep
+     * using the live index; from here on every live write is applied to both.
+     */
+    public synchronized void beginRebuild() throws IOException {
+        if (isMigrationRequired()) {
+            throw new IllegalStateException("The index schema migration has not finished yet");
+        }
+        startRebuild();
+    }
+    
+    private void startRebuild() throws IOException {
+        if (rebuildIndex != null) {
+            throw new IllegalStateException("An index rebuild is already running");
+        }
+        Path path = indexRoot.resolve(REBUILD_DIRECTORY_PREFIX + System.currentTimeMillis());
+        LuceneIndex index = new LuceneIndex(path, analyzer, IndexWriterConfig.OpenMode.CREATE, searcherFactory,
+                configuredIndexSort());
+        index.getWriter().setLiveCommitData(currentSchemaCommitData());
+        
+        swapLock.writeLock().lock();
+        try {
+            rebuildTouchedIds.clear();
+            rebuildIndex = index;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        logger.info("Started index rebuild in {}", path);
+    }
+    
+    /**
+     * Adds a document read from the database to the index being rebuilt, unless a live write
+     * already put a newer version of it there or deleted it.
+     */
+    public void addToRebuild(Document document) throws IOException {
+        LuceneIndex target = rebuildIndex;
+        if (target == null) {
+            throw new IllegalStateException("No index rebuild is running");
+        }
+        org.apache.lucene.document.Document luceneDoc = toLuceneDocument(document);
+        synchronized (rebuildLock(document.getId())) {
+            if (!rebuildTouchedIds.contains(document.getId())) {
+                target.getWriter().updateDocument(idTerm(document.getId()), luceneDoc);
+            }
+        }
+    }
+    
+    /**
+     * Drops documents from the index being rebuilt that {@code existingIds} no longer reports,
+     * checking the rebuilt ids one batch at a time. This catches rows deleted after the rebuild
+     * streamed them but before their delete reached the mirror. Documents the mirror has written
+     * are left alone, since the live write already settled their state.
+     */
+    public int removeDeletedFromRebuild(int batchSize, Function<Collection<Long>, Collection<Long>> existingIds)
+            throws IOException {
+        LuceneIndex target = rebuildIndex;
+        if (target == null) {
+            throw new IllegalStateException("No index rebuild is running");
+        }
+        
+        target.getSearcherManager().maybeRefreshBlocking();
+        IndexSearcher searcher = target.getSearcherManager().acquire();
+        int removed = 0;
+        try {
+            List<Long> batch = new ArrayList<>(batchSize);
+            for (LeafReaderContext leaf : searcher.getIndexReader().leaves()) {
+                NumericDocValues ids = leaf.reader().getNumericDocValues("id");
+                if (ids == null) {
+                    continue;
+                }
+                Bits liveDocs = leaf.reader().getLiveDocs();
+                for (int doc = ids.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = ids.nextDoc()) {
+                    if (liveDocs != null && !liveDocs.get(doc)) {
+                        continue;
+                    }
+                    batch.add(ids.longValue());
+                    if (batch.size() >= batchSize) {
+                        removed += removeMissing(target, batch, existingIds);
+                        batch.clear();
+                    }
+                }
+            }
+            removed += removeMissing(target, batch, existingIds);
+        } finally {
+            target.getSearcherManager().release(searcher);
+        }
+        
+        if (removed > 0) {
+            logger.info("Removed {} deleted documents from the index rebuild", removed);
+        }
+        return removed;
+    }
+    
+    private int removeMissing(LuceneIndex target, List<Long> batch,
+                              Function<Collection<Long>, Collection<Long>> existingIds) throws IOException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Set<Long> existing = new HashSet<>(existingIds.apply(batch));
+        int removed = 0;
+        for (Long documentId : batch) {
+            if (existing.contains(documentId)) {
+                continue;
+            }
+            synchronized (rebuildLock(documentId)) {
+                if (!rebuildTouchedIds.contains(documentId)) {
+                    target.getWriter().deleteDocuments(idTerm(documentId));
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+    
+    /**
+     * Commits and warms the rebuilt index, then makes it the live one. Live writes only pause for
+     * the swap itself; searches never do. The replaced index is kept on disk for
+     * {@link #rollbackIndex()} until the next rebuild completes.
+     */
+    public synchronized void completeRebuild(List<String> warmQueries) throws IOException {
+        LuceneIndex rebuilt = rebuildIndex;
+        if (rebuilt == null) {
+            throw new IllegalStateException("No index rebuild is running");
+        }
+        
+        // The expensive commit and warm-up happen while the old index still serves everything
+        rebuilt.getWriter().commit();
+        rebuilt.getSearcherManager().maybeRefreshBlocking();
+        warm(rebuilt, warmQueries);
+        
+        Path stalePath = previousIndexPath;
+        LuceneIndex retired;
+        long start = System.nanoTime();
+        swapLock.writeLock().lock();
+        try {
+            // Picks up the few live writes that arrived during warm-up
+            commit(rebuilt.getWriter());
+            rebuilt.getSearcherManager().maybeRefreshBlocking();
+            retired = activate(rebuilt);
+            rebuildIndex = null;
+            rebuildTouchedIds.clear();
+            indexSchemaVersion = SCHEMA_VERSION;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        logger.info("Swapped to rebuilt index {} in {}ms; previous index {} kept for rollback", rebuilt.getPath(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), retired.getPath());
+        
+        retired.close();
+        if (stalePath != null && !stalePath.equals(rebuilt.getPath())) {
+            deleteIndexFiles(stalePath);
+        }
+    }
+    
+    /**
+     * Discards a rebuild that failed or was cancelled; the live index is unaffected.
+     */
+    public synchronized void abortRebuild() throws IOException {
+        LuceneIndex abandoned;
+        swapLock.writeLock().lock();
+        try {
+            abandoned = rebuildIndex;
+            rebuildIndex = null;
+            rebuildTouchedIds.clear();
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        if (abandoned != null) {
+            abandoned.abandon();
+            deleteIndexFiles(abandoned.getPath());
+            logger.info("Abandoned index rebuild in {}", abandoned.getPath());
+        }
+    }
+    
+    /**
+     * Swaps back to the index that was live before the last swap. Writes made since then are not
+     * in it; a reindex brings it up to date with the database.
+     */
+    public synchronized void rollbackIndex() throws IOException {
+        Path previous = previousIndexPath;
+        if (rebuildIndex != null) {
+            throw new IllegalStateException("An index rebuild is running");
+        }
+        if (previous == null || !Files.isDirectory(previous) || !indexExists(previous)) {
+            throw new IllegalStateException("No previous index to roll back to");
+        }
+        
+        LuceneIndex restored = new LuceneIndex(previous, analyzer, IndexWriterConfig.OpenMode.APPEND, searcherFactory,
+                configuredIndexSort());
+        int restoredVersion = readSchemaVersion(restored.getWriter());
+        if (restoredVersion < SCHEMA_VERSION) {
+            restored.close();
+            throw new IllegalStateException("The previous index uses an outdated schema version " + restoredVersion);
+        }
+        
+        LuceneIndex retired;
+        swapLock.writeLock().lock();
+        try {
+            retired = activate(restored);
+            indexSchemaVersion = restoredVersion;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+        retired.close();
+        logger.info("Rolled back to index {}; {} kept as the previous index", previous, retired.getPath());
+    }
+    
+    public boolean isRebuildRunning() {
+        return rebuildIndex != null;
+    }
+    
+    public String getActiveIndexPath() {
+        return activeIndex.getPath().toString();
+    }
+    
+    public String getPreviousIndexPath() {
+        Path previous = previousIndexPath;
+        return previous != null ? previous.toString() : null;
+    }
+    
+    /**
+     * Makes {@code replacement} the live index. Callers hold the swap write lock, so no write is
+     * half-applied; the returned index is no longer used and may be closed.
+     */
+    private LuceneIndex activate(LuceneIndex replacement) throws IOException {
+        LuceneIndex retired = activeIndex;
+        // Pointers first: a crash before the in-memory swap still restarts on a consistent pair
+        writePointer(PREVIOUS_POINTER, retired.getPath());
+        writePointer(ACTIVE_POINTER, replacement.getPath());
         
-        IndexReader reader = DirectoryReader.open(directory);
-        IndexSearcher searcher = new IndexSearcher(reader);
+        replacement.startRefreshing(new RefreshMetricsListener(), maxStaleMs, minStaleMs);
+        activeIndex = replacement;
+        previousIndexPath = retired.getPath();
+        // close() below commits the retired index's pending operations
+        pendingOperations.set(0);
+        // Results cached for the old index must not be served any more
+        searcherGeneration.incrementAndGet();
+        return retired;
+    }
+    
+    private void applyToRebuild(Long documentId, IndexWriteOperation operation) throws IOException {
+        LuceneIndex target = rebuildIndex;
+        if (target == null) {
+            return;
+        }
+        synchronized (rebuildLock(documentId)) {
+            rebuildTouchedIds.add(documentId);
+            operation.apply(target.getWriter());
+        }
+    }
+    
+    private Object rebuildLock(Long documentId) {
+        return rebuildLocks[(int) Math.floorMod(documentId, (long) rebuildLocks.length)];
+    }
+    
+    @FunctionalInterface
+    private interface IndexWriteOperation {
+        long apply(IndexWriter writer) throws IOException;
+    }
+    
+    /**
+     * Runs representative queries against a freshly built index so its first live requests do not
+     * pay for loading postings, doc values and stored fields from disk.
+     */
+    private void warm(LuceneIndex index, List<String> warmQueries) throws IOException {
+        SearchOptions allFields = SearchOptions.defaults().setFields(SearchOptions.OPTIONAL_FIELDS);
+        IndexSearcher searcher = index.getSearcherManager().acquire();
+        try {
+            for (String query : warmQueries) {
+                try {
+                    search(searcher, query, 0, 10, null, allFields);
+                } catch (ParseException e) {
+                    logger.debug("Skipping warm-up query '{}': {}", query, e.getMessage());
+                }
+            }
+        } finally {
+            index.getSearcherManager().release(searcher);
+        }
+        logger.info("Warmed rebuilt index with {} queries", warmQueries.size());
+    }
+    
+    private Path readPointer(String pointer) throws IOException {
+        Path file = indexRoot.resolve(pointer);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        return indexRoot.resolve(Files.readString(file).trim()).normalize();
+    }
+    
+    private void writePointer(String pointer, Path target) throws IOException {
+        String relative = indexRoot.relativize(target).toString();
+        Path temp = indexRoot.resolve(pointer + ".tmp");
+        Files.writeString(temp, relative.isEmpty() ? "." : relative);
+        Files.move(temp, indexRoot.resolve(pointer), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    private static boolean indexExists(Path path) throws IOException {
+        try (FSDirectory directory = FSDirectory.open(path)) {
+            return DirectoryReader.indexExists(directory);
+        }
+    }
+    
+    /**
+     * Removes rebuild directories left behind by a crash; only the live and previous index survive.
+     */
+    private void deleteAbandonedRebuilds() throws IOException {
+        Path active = activeIndex.getPath();
+        try (Stream<Path> entries = Files.list(indexRoot)) {
+            entries.filter(Files::isDirectory)
+                    .filter(path -> path.getFileName().toString().startsWith(REBUILD_DIRECTORY_PREFIX))
+                    .filter(path -> !path.equals(active) && !path.equals(previousIndexPath))
+                    .forEach(this::deleteIndexFiles);
+        }
+    }
+    
+    private void deleteIndexFiles(Path path) {
+        try {
+            if (path.equals(indexRoot)) {
+                // An index from before rebuilds existed shares the root with the pointers and rebuilds
+                try (Stream<Path> entries = Files.list(path)) {
+                    for (Path entry : entries.toList()) {
+                        String name = entry.getFileName().toString();
+                        if (Files.isRegularFile(entry) && !name.startsWith(ACTIVE_POINTER)
+                                && !name.startsWith(PREVIOUS_POINTER)) {
+                            Files.delete(entry);
+                        }
+                    }
+                }
+            } else {
+                FileSystemUtils.deleteRecursively(path);
+            }
+            logger.info("Deleted index {}", path);
+        } catch (IOException e) {
+            logger.warn("Could not delete index {}: {}", path, e.getMessage());
+        }
+    }
+    
+    /**
+     * Returns one page of hits. With {@code after} set, collection resumes directly after that
+     * hit; otherwise the first {@code offset} hits are skipped. Stored fields are loaded and
+     * highlighted only for the hits on the returned page, and full content only when requested.
+     */
+    public LuceneSearchResult search(String queryString, int offset, int pageSize, ScoreDoc after,
+                                     SearchOptions options) throws IOException, ParseException {
+        if (queryString == null || queryString.trim().isEmpty()) {
+            return new LuceneSearchResult(new ArrayList<>(), 0, null);
+        }
         
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            return search(searcher, queryString, offset, pageSize, after, options);
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+    
+    private LuceneSearchResult search(IndexSearcher searcher, String queryString, int offset, int pageSize,
+                                      ScoreDoc after, SearchOptions options) throws IOException, ParseException {
         String[] fields = {"title", "content"};
-        MultiFieldQueryParser parser = new MultiFieldQueryParser(fields, analyzer);
-        Query query = parser.parse(queryString.trim());
+        GuardedQueryParser parser = new GuardedQueryParser(fields, analyzer, queryMaxClauses,
+                queryMaxExpandingTerms, queryMaxExpansions, queryMaxFuzzyEdits);
+        Query query;
+        try {
+            query = parser.parse(queryString.trim());
+        } catch (QueryRejectedException e) {
+            queriesRejected.increment();
+            throw e;
+        }
+        // Filters only narrow the hits; highlighting keeps using the text query
+        Query filteredQuery = withFilters(query, options);
+        
+        // The shared searcher is reused across requests, so the time limit goes on a per-request one
+        long timeoutMs = options.getTimeoutMs() != null
+                ? Math.min(options.getTimeoutMs(), queryMaxTimeoutMs) : queryTimeoutMs;
+        IndexSearcher limitedSearcher = searcherFactory.newSearcher(searcher.getIndexReader(),
+                new QueryTimeoutImpl(timeoutMs));
         
-        TopDocs topDocs = searcher.search(query, maxResults);
+        // Field sorts read doc values and skip scoring; with a matching index sort they stop early
+        boolean relevance = options.getSort() == SearchSort.RELEVANCE;
+        Sort sort = luceneSort(options.getSort());
+        int numHits = after != null ? pageSize : offset + pageSize;
+        TopDocs topDocs;
+        ScoreDoc[] pageHits;
+        Map<String, Map<String, Long>> facets = null;
+        // Facets visit every hit anyway, so skipping saves nothing and the total may as well be exact
+        int threshold = options.isFacets() ? Integer.MAX_VALUE : totalHitsThreshold;
+        try {
+            CollectorManager<?, ? extends TopDocs> topHits =
+                    TopFieldCollector.createSharedManager(sort, numHits, (FieldDoc) after, threshold);
+            if (options.isFacets()) {
+                // Facets are counted over every hit in the same pass that collects the top hits
+                Object[] collected = limitedSearcher.search(filteredQuery, new MultiCollectorManager(
+                        topHits, new FacetCountsCollectorManager(toEpochMillis(LocalDateTime.now()))));
+                topDocs = (TopDocs) collected[0];
+                @SuppressWarnings("unchecked")
+                Map<String, Map<String, Long>> counts = (Map<String, Map<String, Long>>) collected[1];
+                facets = counts;
+            } else {
+                topDocs = limitedSearcher.search(filteredQuery, topHits);
+            }
+            if (after != null) {
+                pageHits = topDocs.scoreDocs;
+            } else {
+                int from = Math.min(offset, topDocs.scoreDocs.length);
+                pageHits = Arrays.copyOfRange(topDocs.scoreDocs, from, topDocs.scoreDocs.length);
+            }
+        } catch (IndexSearcher.TooManyClauses e) {
+            queriesRejected.increment();
+            throw new QueryRejectedException("Query expands to too many clauses: " + e.getMessage());
+        }
+        boolean timedOut = limitedSearcher.timedOut();
+        if (timedOut) {
+            queriesTimedOut.increment();
+            logger.warn("Search for '{}' ran out of its {}ms budget; returning partial results", queryString, timeoutMs);
+        }
         
         List<SearchResultDto> results = new ArrayList<>();
         
-        // Setup highlighter
-        QueryScorer scorer = new QueryScorer(query);
-        Highlighter highlighter = new Highlighter(scorer);
-        highlighter.setTextFragmenter(new SimpleSpanFragmenter(scorer, 150));
+        // Passages come from the offsets stored in the postings, so content is never re-analyzed
+        LoadedContentHighlighter highlighter = new LoadedContentHighlighter(UnifiedHighlighter.builder(searcher, analyzer)
+                .withMaxLength(highlightMaxLength)
+                .withMaxNoHighlightPassages(0));
+        long highlightDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(highlightBudgetMs);
         
-        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
-            org.apache.lucene.document.Document doc = searcher.doc(scoreDoc.doc);
+        boolean includeContent = options.includesField("content");
+        StoredFields storedFields = searcher.storedFields();
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        for (ScoreDoc scoreDoc : pageHits) {
+            ResultFieldsVisitor doc = new ResultFieldsVisitor(includeContent);
+            storedFields.document(scoreDoc.doc, doc);
+            LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(scoreDoc.doc, leaves));
+            int leafDoc = scoreDoc.doc - leaf.docBase;
             
             SearchResultDto result = new SearchResultDto();
-            result.setId(Long.parseLong(doc.get("id")));
-            result.setTitle(doc.get("title"));
-            result.setContent(doc.get("content"));
-            result.setUrl(doc.get("url"));
-            result.setScore((double) scoreDoc.score);
+            result.setId(Long.parseLong(doc.id));
+            result.setTitle(doc.title);
+            result.setUrl(doc.url);
+            if (relevance) {
+                result.setScore(((Float) ((FieldDoc) scoreDoc).fields[0]).doubleValue());
+            }
+            if (includeContent) {
+                result.setContent(doc.content);
+            }
+            if (options.includesField("contentType")) {
+                result.setContentType(readSortedValue(leaf, "contentType", leafDoc));
+            }
+            if (options.includesField("fileSize")) {
+                result.setFileSize(readNumericValue(leaf, "fileSize", leafDoc));
+            }
+            if (options.includesField("createdAt")) {
+                result.setCreatedAt(toDateTime(readNumericValue(leaf, "createdAt", leafDoc)));
+            }
+            if (options.includesField("updatedAt")) {
+                result.setUpdatedAt(toDateTime(readNumericValue(leaf, "updatedAt", leafDoc)));
+            }
             
-            // Generate highlighted content
-            try {
-                String content = doc.get("content");
-                if (content != null && !content.isEmpty()) {
-                    String highlightedContent = highlighter.getBestFragment(analyzer, "content", content);
-                    if (highlightedContent != null) {
-                        result.setHighlightedContent(highlightedContent);
-                    } else {
-                        // If no highlight found, use first 200 characters
-                        result.setHighlightedContent(content.length() > 200 ? 
-                            content.substring(0, 200) + "..." : content);
-                    }
+            // Generate highlighted content while the request's highlight budget lasts
+            String snippetSource = doc.getSnippetSource();
+            if (snippetSource != null && !snippetSource.isEmpty()) {
+                String highlightedContent = null;
+                if (System.nanoTime() < highlightDeadline) {
+                    highlightedContent = highlighter.highlight(query, scoreDoc.doc, snippetSource);
+                } else {
+                    highlightBudgetExhausted.increment();
                 }
-            } catch (InvalidTokenOffsetsException e) {
-                logger.warn("Error highlighting content for document {}: {}", result.getId(), e.getMessage());
-                String content = doc.get("content");
-                result.setHighlightedContent(content != null && content.length() > 200 ? 
-                    content.substring(0, 200) + "..." : content);
+                // If no highlight found, use first 200 characters
+                result.setHighlightedContent(highlightedContent != null ? highlightedContent : leadingSnippet(snippetSource));
             }
             
             results.add(result);
         }
         
-        reader.close();
-        logger.debug("Search for '{}' returned {} results", queryString, results.size());
-        return results;
+        logger.debug("Search for '{}' returned {} results of {} hits", queryString, results.size(), topDocs.totalHits);
+        ScoreDoc lastHit = pageHits.length > 0 ? pageHits[pageHits.length - 1] : null;
+        return new LuceneSearchResult(results, topDocs.totalHits, lastHit, timedOut, facets);
+    }
+    
+    /**
+     * Adds the request's filters as non-scoring clauses. Each filter can run from the terms or
+     * points index when it is selective or from doc values when the rest of the query leads, and
+     * as a non-scoring clause it is eligible for the searcher's query cache.
+     */
+    private static Query withFilters(Query query, SearchOptions options) {
+        if (!options.hasFilters()) {
+            return query;
+        }
+        BooleanQuery.Builder builder = new BooleanQuery.Builder().add(query, BooleanClause.Occur.MUST);
+        if (!options.getContentTypes().isEmpty()) {
+            List<BytesRef> types = options.getContentTypes().stream().map(BytesRef::new).toList();
+            builder.add(new IndexOrDocValuesQuery(new TermInSetQuery("contentType", types),
+                    SortedDocValuesField.newSlowSetQuery("contentType", types.toArray(new BytesRef[0]))),
+                    BooleanClause.Occur.FILTER);
+        }
+        if (options.getCreatedFrom() != null || options.getCreatedTo() != null) {
+            long from = options.getCreatedFrom() != null ? toEpochMillis(options.getCreatedFrom()) : Long.MIN_VALUE;
+            // The upper bound is exclusive
+            long to = options.getCreatedTo() != null ? toEpochMillis(options.getCreatedTo()) - 1 : Long.MAX_VALUE;
+            builder.add(rangeFilter("createdAt", from, to), BooleanClause.Occur.FILTER);
+        }
+        if (options.getMinFileSize() != null || options.getMaxFileSize() != null) {
+            long min = options.getMinFileSize() != null ? options.getMinFileSize() : Long.MIN_VALUE;
+            long max = options.getMaxFileSize() != null ? options.getMaxFileSize() : Long.MAX_VALUE;
+            builder.add(rangeFilter("fileSize", min, max), BooleanClause.Occur.FILTER);
+        }
+        return builder.build();
+    }
+    
+    private static Query rangeFilter(String field, long min, long max) {
+        return new IndexOrDocValuesQuery(LongPoint.newRangeQuery(field, min, max),
+                NumericDocValuesField.newSlowRangeQuery(field, min, max));
+    }
+    
+    /**
+     * Loads only the stored fields a result needs. The full content is stored last, so when it
+     * is not requested and a snippet source exists, reading stops before it is decompressed.
+     */
+    private static class ResultFieldsVisitor extends StoredFieldVisitor {
+        
+        private final boolean includeContent;
+        private String id;
+        private String title;
+        private String url;
+        private String snippetSource;
+        private String content;
+        
+        ResultFieldsVisitor(boolean includeContent) {
+            this.includeContent = includeContent;
+        }
+        
+        @Override
+        public Status needsField(FieldInfo fieldInfo) {
+            if ("content".equals(fieldInfo.name)) {
+                // Small documents have no separate snippet source and highlight from the content itself
+                return includeContent || snippetSource == null ? Status.YES : Status.STOP;
+            }
+            return Status.YES;
+        }
+        
+        @Override
+        public void stringField(FieldInfo fieldInfo, String value) {
+            switch (fieldInfo.name) {
+                case "id" -> id = value;
+                case "title" -> title = value;
+                case "url" -> url = value;
+                case "snippetSource" -> snippetSource = value;
+                case "content" -> content = value;
+                default -> { }
+            }
+        }
+        
+        String getSnippetSource() {
+            return snippetSource != null ? snippetSource : content;
+        }
+    }
+    
+    /**
+     * Unified highlighter that works on the content already loaded for the result instead of
+     * decompressing the stored field a second time.
+     */
+    private static class LoadedContentHighlighter extends UnifiedHighlighter {
+        
+        private String loadedContent;
+        
+        LoadedContentHighlighter(UnifiedHighlighter.Builder builder) {
+            super(builder);
+        }
+        
+        String highlight(Query query, int docId, String content) throws IOException {
+            loadedContent = content;
+            try {
+                return highlightFields(new String[] {"content"}, query, new int[] {docId}, new int[] {1})
+                        .get("content")[0];
+            } finally {
+                loadedContent = null;
+            }
+        }
+        
+        @Override
+        protected List<CharSequence[]> loadFieldValues(String[] fields, DocIdSetIterator docIter,
+                                                       int cacheCharsThreshold) throws IOException {
+            List<CharSequence[]> values = new ArrayList<>();
+            while (docIter.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+                CharSequence content = loadedContent.length() > getMaxLength()
+                        ? loadedContent.substring(0, getMaxLength()) : loadedContent;
+                values.add(new CharSequence[] {content});
+            }
+            return values;
+        }
+    }
+    
+    private static Long readNumericValue(LeafReaderContext leaf, String field, int leafDoc) throws IOException {
+        NumericDocValues values = leaf.reader().getNumericDocValues(field);
+        return values != null && values.advanceExact(leafDoc) ? values.longValue() : null;
+    }
+    
+    private static String readSortedValue(LeafReaderContext leaf, String field, int leafDoc) throws IOException {
+        SortedDocValues values = leaf.reader().getSortedDocValues(field);
+        return values != null && values.advanceExact(leafDoc) ? values.lookupOrd(values.ordValue()).utf8ToString() : null;
+    }
+    
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    private static LocalDateTime toDateTime(Long epochMillis) {
+        return epochMillis != null ? LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC) : null;
+    }
+    
+    private static String leadingSnippet(String content) {
+        return content.length() > 200 ? content.substring(0, 200) + "..." : content;
     }
     
     public List<String> getSuggestions(String partialQuery, int maxSuggestions) throws IOException {
@@ -160,25 +1143,218 @@ public class LuceneSearchService {
             return suggestions;
         }
         
-        IndexReader reader = DirectoryReader.open(directory);
-        
-        // This is a basic implementation - in production, you might want to use
-        // Lucene's suggest module or implement a more sophisticated suggestion algorithm
-        
-        reader.close();
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            // This is a basic implementation - in production, you might want to use
+            // Lucene's suggest module or implement a more sophisticated suggestion algorithm
+        } finally {
+            releaseSearcher(searcher);
+        }
         return suggestions;
     }
     
     public void optimizeIndex() throws IOException {
-        indexWriter.forceMerge(1);
-        indexWriter.commit();
+        swapLock.readLock().lock();
+        try {
+            activeIndex.getWriter().forceMerge(1);
+            flush();
+        } finally {
+            swapLock.readLock().unlock();
+        }
         logger.info("Index optimization completed");
     }
     
+    /**
+     * Commits all pending index operations to disk regardless of the commit policy.
+     *
+     * @return the number of operations made durable by this call
+     */
+    public long flush() throws IOException {
+        long pending;
+        long start = System.nanoTime();
+        swapLock.readLock().lock();
+        try {
+            pending = pendingOperations.getAndSet(0);
+            try {
+                commit(activeIndex.getWriter());
+            } catch (IOException | RuntimeException e) {
+                pendingOperations.addAndGet(pending);
+                throw e;
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.debug("Committed {} pending index operations", pending);
+        return pending;
+    }
+    
+    public long getPendingOperations() {
+        return pendingOperations.get();
+    }
+    
+    /**
+     * Returns a marker for the writes made so far; they are durable once
+     * {@link #isCommitted(long)} reports true for it.
+     */
+    public long getCommitMarker() {
+        return commitsStarted.get();
+    }
+    
+    public boolean isCommitted(long marker) {
+        return lastDurableCommit.get() > marker;
+    }
+    
+    private void commit(IndexWriter writer) throws IOException {
+        long sequence = commitsStarted.incrementAndGet();
+        writer.commit();
+        lastDurableCommit.accumulateAndGet(sequence, Math::max);
+    }
+    
+    private void commitPendingQuietly() {
+        if (pendingOperations.get() == 0) {
+            return;
+        }
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Scheduled index commit failed: {}", e.getMessage(), e);
+        }
+    }
+    
     public long getIndexSize() throws IOException {
-        IndexReader reader = DirectoryReader.open(directory);
-        long size = reader.numDocs();
-        reader.close();
-        return size;
+        IndexSearcher searcher = acquireSearcher();
+        try {
+            return searcher.getIndexReader().numDocs();
+        } finally {
+            releaseSearcher(searcher);
+        }
+    }
+    
+    /**
+     * Acquires the current shared searcher. Every call must be paired with
+     * {@link #releaseSearcher(IndexSearcher)}, typically in a finally block.
+     */
+    public IndexSearcher acquireSearcher() throws IOException {
+        if (waitForWrites) {
+            waitForLatestWrite();
+        }
+        while (true) {
+            LuceneIndex index = activeIndex;
+            try {
+                return index.getSearcherManager().acquire();
+            } catch (AlreadyClosedException e) {
+                // Lost a race with a swap; the replacement is already live
+                if (index == activeIndex) {
+                    throw e;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Returns a counter that changes every time a new searcher is opened. Honours
+     * wait-for-writes, so the value reflects the searcher the next search would see.
+     */
+    public long getSearcherGeneration() throws IOException {
+        if (waitForWrites) {
+            waitForLatestWrite();
+        }
+        return searcherGeneration.get();
+    }
+    
+    public void releaseSearcher(IndexSearcher searcher) throws IOException {
+        // Released by reference count, so this also works for a searcher of an index swapped out since
+        searcher.getIndexReader().decRef();
+    }
+    
+    private void waitForLatestWrite() throws IOException {
+        try {
+            if (!activeIndex.waitForLatestWrite(maxStaleMs)) {
+                logger.debug("Timed out waiting for the latest index write to become searchable");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for index refresh", e);
+        }
+    }
+    
+    private void recordWrite(long generation) throws IOException {
+        recordWrite(generation, 1);
+    }
+    
+    private void recordWrite(long generation, int operations) throws IOException {
+        activeIndex.recordWriteGeneration(generation);
+        oldestUnrefreshedWriteNanos.compareAndSet(0, System.nanoTime());
+        
+        // Visibility comes from NRT refresh; commits only control durability
+        long pending = pendingOperations.addAndGet(operations);
+        if (commitMaxPendingOps > 0 && pending >= commitMaxPendingOps) {
+            flush();
+        }
+    }
+    
+    private void registerMetrics() {
+        refreshTimer = Timer.builder("search.index.refresh")
+                .description("Time spent reopening the near-real-time searcher")
+                .register(meterRegistry);
+        refreshLagTimer = Timer.builder("search.index.refresh.lag")
+                .description("Delay between an index write and the refresh that made it searchable")
+                .register(meterRegistry);
+        commitTimer = Timer.builder("search.index.commit")
+                .description("Time spent committing pending index operations")
+                .register(meterRegistry);
+        highlightBudgetExhausted = Counter.builder("search.highlight.budget.exhausted")
+                .description("Hits that got a leading snippet because the highlight budget was spent")
+                .register(meterRegistry);
+        searchCallerRuns = Counter.builder("search.executor.caller.runs")
+                .description("Segment slice tasks run on the request thread because the search pool was saturated")
+                .register(meterRegistry);
+        queriesRejected = Counter.builder("search.query.limited")
+                .description("Searches rejected or cut short by the query limits")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        queriesTimedOut = Counter.builder("search.query.limited")
+                .description("Searches rejected or cut short by the query limits")
+                .tag("outcome", "timed_out")
+                .register(meterRegistry);
+        refreshCounter = Counter.builder("search.index.refreshes")
+                .description("Number of refreshes that opened a new searcher")
+                .register(meterRegistry);
+        Gauge.builder("search.index.staleness", oldestUnrefreshedWriteNanos, pending -> {
+                    long since = pending.get();
+                    return since == 0 ? 0.0 : (System.nanoTime() - since) / 1_000_000.0;
+                })
+                .description("Age in milliseconds of the oldest write not yet visible to searches")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+    }
+    
+    private class RefreshMetricsListener implements ReferenceManager.RefreshListener {
+        
+        private long refreshStartNanos;
+        private long pendingSinceNanos;
+        
+        @Override
+        public void beforeRefresh() {
+            refreshStartNanos = System.nanoTime();
+            pendingSinceNanos = oldestUnrefreshedWriteNanos.getAndSet(0);
+        }
+        
+        @Override
+        public void afterRefresh(boolean didRefresh) {
+            long now = System.nanoTime();
+            refreshTimer.record(now - refreshStartNanos, TimeUnit.NANOSECONDS);
+            if (didRefresh) {
+                searcherGeneration.incrementAndGet();
+                refreshCounter.increment();
+                if (pendingSinceNanos != 0) {
+                    refreshLagTimer.record(now - pendingSinceNanos, TimeUnit.NANOSECONDS);
+                }
+            } else if (pendingSinceNanos != 0) {
+                // Nothing new was opened; keep tracking the write as pending
+                oldestUnrefreshedWriteNanos.compareAndSet(0, pendingSinceNanos);
+            }
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,341 @@
+package com.searchengine.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts the text of HTML and XML files with a single streaming pass that drops tags,
+ * comments and processing instructions and decodes character references. HTML {@code head},
+ * {@code script} and {@code style} content is skipped, matching what Tika's HTML parser keeps.
+ * The charset comes from a byte order mark, then from an XML declaration or meta charset near
+ * the start of the file, and defaults to UTF-8.
+ */
+@Component
+public class MarkupTextExtractor implements TextExtractor {
+    
+    private static final int SNIFF_BYTES = 1024;
+    
+    // Only declarations count: the same words in text or attributes near the start say nothing
+    private static final Pattern XML_DECLARED_CHARSET = Pattern.compile(
+            "\\A\\s*<\\?xml\\s[^>]*?encoding\\s*=\\s*[\"']([A-Za-z0-9._:-]+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern META_DECLARED_CHARSET = Pattern.compile(
+            "<meta\\s[^>]*?charset\\s*=\\s*[\"']?([A-Za-z0-9._:-]+)", Pattern.CASE_INSENSITIVE);
+    
+    private static final Set<String> SKIPPED_HTML_ELEMENTS = Set.of("head", "script", "style");
+    
+    // Tags that sit inside words and sentences, so they don't separate the text around them
+    private static final Set<String> INLINE_HTML_ELEMENTS = Set.of(
+            "a", "abbr", "b", "code", "em", "i", "mark", "small", "span", "strong", "sub", "sup", "u");
+    
+    private static final Map<String, String> NAMED_ENTITIES = Map.of(
+            "amp", "&", "lt", "<", "gt", ">", "quot", "\"", "apos", "'",
+            "nbsp", " ", "copy", "\u00A9", "mdash", "\u2014", "ndash", "\u2013", "hellip", "\u2026");
+    
+    @Override
+    public Set<String> getExtensions() {
+        return Set.of("html", "htm", "xml");
+    }
+    
+    @Override
+    public ExtractedContent extract(Path path, int maxChars) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            return extract(input, path.getFileName().toString(), maxChars);
+        }
+    }
+    
+    @Override
+    public ExtractedContent extract(InputStream input, String fileName, int maxChars) throws IOException {
+        boolean html = !"xml".equals(TextExtractionService.extension(fileName));
+        BufferedInputStream buffered = new BufferedInputStream(input, 8192);
+        Charset charset = sniffCharset(buffered, html);
+        Reader reader = new InputStreamReader(buffered, charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+        
+        TagStripper stripper = new TagStripper(html, maxChars);
+        char[] buffer = new char[8192];
+        int read;
+        boolean truncated = false;
+        while (!truncated && (read = reader.read(buffer)) != -1) {
+            truncated = !stripper.feed(buffer, read);
+        }
+        if (!truncated) {
+            truncated = !stripper.finish();
+        }
+        return new ExtractedContent(stripper.getText(), html ? "text/html" : "application/xml", truncated);
+    }
+    
+    /**
+     * Picks the charset from the first bytes of the stream and leaves the stream positioned after
+     * any byte order mark. Only an XML declaration or, for HTML, a {@code <meta>} tag is trusted.
+     */
+    private static Charset sniffCharset(BufferedInputStream input, boolean html) throws IOException {
+        input.mark(SNIFF_BYTES);
+        byte[] head = input.readNBytes(SNIFF_BYTES);
+        input.reset();
+        
+        ByteBuffer headBuffer = ByteBuffer.wrap(head);
+        Charset charset = PlainTextExtractor.readByteOrderMark(headBuffer);
+        if (charset != null) {
+            input.skipNBytes(headBuffer.position());
+            return charset;
+        }
+        
+        String declared = declaredCharset(new String(head, StandardCharsets.ISO_8859_1), html);
+        if (declared != null) {
+            try {
+                return Charset.forName(declared);
+            } catch (IllegalArgumentException e) {
+                // unknown or unsupported name; fall through to the default
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+    
+    private static String declaredCharset(String start, boolean html) {
+        Matcher xml = XML_DECLARED_CHARSET.matcher(start);
+        if (xml.find()) {
+            return xml.group(1);
+        }
+        Matcher meta = META_DECLARED_CHARSET.matcher(start);
+        return html && meta.find() ? meta.group(1) : null;
+    }
+    
+    /**
+     * State machine over the character stream. Only a tag's name is buffered, so memory stays
+     * bounded by the text kept no matter how long tags, comments or skipped elements are.
+     */
+    private static class TagStripper {
+        
+        private enum State { TEXT, TAG, COMMENT, CDATA, REFERENCE }
+        
+        private static final int MAX_BUFFERED_NAME = 64;
+        private static final int MAX_REFERENCE = 10;
+        
+        private final boolean html;
+        private final int maxChars;
+        private final StringBuilder text = new StringBuilder();
+        private final StringBuilder tag = new StringBuilder();
+        private final StringBuilder reference = new StringBuilder();
+        private State state = State.TEXT;
+        private char quote;
+        private boolean inAttributes;
+        private int closingRun;
+        // Element whose content is being skipped until its end tag
+        private String skipUntil;
+        
+        TagStripper(boolean html, int maxChars) {
+            this.html = html;
+            this.maxChars = maxChars;
+        }
+        
+        /**
+         * @return false once the character cap is reached and more text was left
+         */
+        boolean feed(char[] buffer, int length) {
+            for (int i = 0; i < length; i++) {
+                char c = buffer[i];
+                switch (state) {
+                    case TEXT:
+                        if (c == '<') {
+                            state = State.TAG;
+                            tag.setLength(0);
+                            quote = 0;
+                            inAttributes = false;
+                        } else if (c == '&') {
+                            state = State.REFERENCE;
+                            reference.setLength(0);
+                        } else if (!appendText(c)) {
+                            return false;
+                        }
+                        break;
+                    case REFERENCE:
+                        if (c == ';') {
+                            state = State.TEXT;
+                            if (!appendText(decodeReference())) {
+                                return false;
+                            }
+                        } else if (reference.length() < MAX_REFERENCE && (Character.isLetterOrDigit(c) || c == '#')) {
+                            reference.append(c);
+                        } else {
+                            // Not a reference after all; keep the ampersand and rescan this character
+                            state = State.TEXT;
+                            if (!appendText("&" + reference)) {
+                                return false;
+                            }
+                            i--;
+                        }
+                        break;
+                    case TAG:
+                        if (tag.length() == 0 && (!isMarkupStart(c) || (isRawText() && c != '/'))) {
+                            // A stray '<' in text, as in "a < b", or a comparison inside a script
+                            state = State.TEXT;
+                            if (!appendText('<')) {
+                                return false;
+                            }
+                            i--;
+                        } else if (quote != 0) {
+                            if (c == quote) {
+                                quote = 0;
+                            }
+                        } else if (c == '>') {
+                            state = State.TEXT;
+                            endTag();
+                        } else if ((c == '"' || c == '\'') && inAttributes) {
+                            quote = c;
+                        } else if (tag.length() < MAX_BUFFERED_NAME) {
+                            inAttributes |= Character.isWhitespace(c);
+                            tag.append(c);
+                            if (tag.length() == 3 && "!--".contentEquals(tag)) {
+                                state = State.COMMENT;
+                                closingRun = 0;
+                            } else if (tag.length() == 8 && "![CDATA[".contentEquals(tag)) {
+                                state = State.CDATA;
+                                closingRun = 0;
+                            }
+                        }
+                        break;
+                    case COMMENT:
+                        if (c == '-') {
+                            closingRun++;
+                        } else {
+                            if (c == '>' && closingRun >= 2) {
+                                state = State.TEXT;
+                            }
+                            closingRun = 0;
+                        }
+                        break;
+                    case CDATA:
+                        if (c == ']') {
+                            closingRun++;
+                        } else if (c == '>' && closingRun >= 2) {
+                            state = State.TEXT;
+                            if (!appendText("]".repeat(closingRun - 2))) {
+                                return false;
+                            }
+                            closingRun = 0;
+                        } else {
+                            if (!appendText("]".repeat(closingRun)) || !appendText(c)) {
+                                return false;
+                            }
+                            closingRun = 0;
+                        }
+                        break;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Keeps an ampersand left open at the end of the input as literal text.
+         */
+        boolean finish() {
+            return state != State.REFERENCE || appendText("&" + reference);
+        }
+        
+        String getText() {
+            return text.toString().strip();
+        }
+        
+        // Script and style content is raw text, so only an end tag can close it
+        private boolean isRawText() {
+            return "script".equals(skipUntil) || "style".equals(skipUntil);
+        }
+        
+        private static boolean isMarkupStart(char c) {
+            return Character.isLetter(c) || c == '/' || c == '!' || c == '?';
+        }
+        
+        private void endTag() {
+            boolean closing = tag.length() > 0 && tag.charAt(0) == '/';
+            int start = closing ? 1 : 0;
+            int end = start;
+            while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '/') {
+                end++;
+            }
+            String name = tag.substring(start, end).toLowerCase();
+            
+            if (html) {
+                if (skipUntil == null && !closing && SKIPPED_HTML_ELEMENTS.contains(name)
+                        && tag.charAt(tag.length() - 1) != '/') {
+                    skipUntil = name;
+                } else if (skipUntil != null && ((closing && name.equals(skipUntil))
+                        || ("head".equals(skipUntil) && "body".equals(name)))) {
+                    // A body start tag also ends a head whose end tag was left out
+                    skipUntil = null;
+                }
+                if (INLINE_HTML_ELEMENTS.contains(name)) {
+                    return;
+                }
+            }
+            appendSeparator();
+        }
+        
+        private String decodeReference() {
+            String name = reference.toString();
+            try {
+                if (name.startsWith("#x") || name.startsWith("#X")) {
+                    return new String(Character.toChars(Integer.parseInt(name.substring(2), 16)));
+                }
+                if (name.startsWith("#")) {
+                    return new String(Character.toChars(Integer.parseInt(name.substring(1))));
+                }
+            } catch (IllegalArgumentException e) {
+                return "&" + name + ";";
+            }
+            String decoded = NAMED_ENTITIES.get(name);
+            return decoded != null ? decoded : "&" + name + ";";
+        }
+        
+        private boolean appendText(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (!appendText(value.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        
+        /**
+         * Appends a text character, folding each run of whitespace into one space or line break.
+         */
+        private boolean appendText(char c) {
+            if (skipUntil != null) {
+                return true;
+            }
+            if (Character.isWhitespace(c) || c == '\u00A0') {
+                if (text.length() == 0 || Character.isWhitespace(text.charAt(text.length() - 1))) {
+                    return true;
+                }
+                c = c == '\n' || c == '\r' ? '\n' : ' ';
+            }
+            if (text.length() >= maxChars) {
+                return false;
+            }
+            text.append(c);
+            return true;
+        }
+        
+        private void appendSeparator() {
+            if (skipUntil == null && text.length() > 0 && text.length() < maxChars
+                    && !Character.isWhitespace(text.charAt(text.length() - 1))) {
+                text.append(' ');
+            }
+        }
+    }
+}
\ No newline at end of file
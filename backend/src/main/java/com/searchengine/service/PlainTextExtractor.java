@@ -0,0 +1,133 @@
+package com.searchengine.service;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+
+/**
+ * Decodes plain text files directly. Large files are memory-mapped and only the bytes that can
+ * contribute to the first {@code maxChars} characters are decoded. The charset comes from a byte
+ * order mark if there is one; otherwise the text is decoded as UTF-8, falling back to
+ * windows-1252 when it is not valid UTF-8.
+ */
+@Component
+public class PlainTextExtractor implements TextExtractor {
+    
+    private static final String CONTENT_TYPE = "text/plain";
+    
+    // Smaller files are read onto the heap; mapping them costs more than it saves
+    private static final int MAP_THRESHOLD = 64 * 1024;
+    
+    // No supported charset needs more bytes than this per character
+    private static final int MAX_BYTES_PER_CHAR = 4;
+    
+    private static final Charset FALLBACK_CHARSET = Charset.forName("windows-1252");
+    
+    @Override
+    public Set<String> getExtensions() {
+        return Set.of("txt");
+    }
+    
+    @Override
+    public ExtractedContent extract(Path path, int maxChars) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int limit = (int) Math.min(size, Math.min((long) maxChars * MAX_BYTES_PER_CHAR, Integer.MAX_VALUE - 8));
+            ByteBuffer bytes;
+            if (limit < MAP_THRESHOLD) {
+                bytes = ByteBuffer.allocate(limit);
+                while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                    // keep reading until the buffer is full or the file ends early
+                }
+                bytes.flip();
+            } else {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, limit);
+            }
+            return decode(bytes, limit == size, maxChars);
+        }
+    }
+    
+    @Override
+    public ExtractedContent extract(InputStream input, String fileName, int maxChars) throws IOException {
+        int limit = (int) Math.min((long) maxChars * MAX_BYTES_PER_CHAR, Integer.MAX_VALUE - 8);
+        byte[] bytes = input.readNBytes(limit);
+        boolean endOfInput = bytes.length < limit || input.read() == -1;
+        return decode(ByteBuffer.wrap(bytes), endOfInput, maxChars);
+    }
+    
+    /**
+     * Consumes a byte order mark at the buffer's position and returns its charset, or null if
+     * the buffer does not start with one.
+     */
+    static Charset readByteOrderMark(ByteBuffer bytes) {
+        int start = bytes.position();
+        int remaining = bytes.remaining();
+        if (remaining >= 3 && (bytes.get(start) & 0xFF) == 0xEF && (bytes.get(start + 1) & 0xFF) == 0xBB
+                && (bytes.get(start + 2) & 0xFF) == 0xBF) {
+            bytes.position(start + 3);
+            return StandardCharsets.UTF_8;
+        }
+        if (remaining >= 2 && (bytes.get(start) & 0xFF) == 0xFE && (bytes.get(start + 1) & 0xFF) == 0xFF) {
+            bytes.position(start + 2);
+            return StandardCharsets.UTF_16BE;
+        }
+        if (remaining >= 2 && (bytes.get(start) & 0xFF) == 0xFF && (bytes.get(start + 1) & 0xFF) == 0xFE) {
+            bytes.position(start + 2);
+            return StandardCharsets.UTF_16LE;
+        }
+        return null;
+    }
+    
+    private static ExtractedContent decode(ByteBuffer bytes, boolean endOfInput, int maxChars)
+            throws CharacterCodingException {
+        Charset charset = readByteOrderMark(bytes);
+        if (charset != null) {
+            return decode(bytes, lenientDecoder(charset), endOfInput, maxChars);
+        }
+        
+        int start = bytes.position();
+        try {
+            CharsetDecoder strict = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+            return decode(bytes, strict, endOfInput, maxChars);
+        } catch (CharacterCodingException e) {
+            bytes.position(start);
+            return decode(bytes, lenientDecoder(FALLBACK_CHARSET), endOfInput, maxChars);
+        }
+    }
+    
+    private static ExtractedContent decode(ByteBuffer bytes, CharsetDecoder decoder, boolean endOfInput,
+            int maxChars) throws CharacterCodingException {
+        // Every supported charset yields at most one character per byte
+        CharBuffer chars = CharBuffer.allocate(Math.min(maxChars, bytes.remaining()));
+        CoderResult result = decoder.decode(bytes, chars, endOfInput);
+        if (result.isError()) {
+            result.throwException();
+        }
+        if (result.isUnderflow() && endOfInput) {
+            decoder.flush(chars);
+        }
+        chars.flip();
+        return new ExtractedContent(chars.toString(), CONTENT_TYPE, result.isOverflow() || !endOfInput);
+    }
+    
+    private static CharsetDecoder lenientDecoder(Charset charset) {
+        return charset.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.searchengine.service;
+
+/**
+ * Thrown when a search query would exceed the configured complexity limits. Callers report it
+ * as a bad request rather than falling back to another search path.
+ */
+public class QueryRejectedException extends IllegalArgumentException {
+
+    public QueryRejectedException(String message) {
+        super(message);
+    }
+}
\ No newline at end of file
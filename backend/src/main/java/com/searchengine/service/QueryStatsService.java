@@ -0,0 +1,179 @@
+package com.searchengine.service;
+
+import com.searchengine.model.QueryStatsBucket;
+import com.searchengine.model.QueryStatsBucket.Granularity;
+import com.searchengine.model.SearchHistory;
+import com.searchengine.repository.QueryStatsBucketRepository;
+import com.searchengine.repository.SearchHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains per-minute, per-hour and per-day rollups of search history so analytics never
+ * have to scan the raw search_history table, and prunes both raw rows and old buckets.
+ */
+@Service
+@Transactional
+public class QueryStatsService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(QueryStatsService.class);
+    
+    @Autowired
+    private SearchHistoryRepository searchHistoryRepository;
+    
+    @Autowired
+    private QueryStatsBucketRepository queryStatsBucketRepository;
+    
+    @Value("${search.history.retention-days:30}")
+    private int historyRetentionDays;
+    
+    @Value("${search.stats.minute-retention-hours:48}")
+    private int minuteRetentionHours;
+    
+    @Value("${search.stats.hour-retention-days:90}")
+    private int hourRetentionDays;
+    
+    @Value("${search.stats.day-retention-days:730}")
+    private int dayRetentionDays;
+    
+    /**
+     * Persists a batch of raw history rows and folds them into the rollup buckets in the
+     * same transaction. Callers are expected to be serialised (see {@link SearchHistoryWriter}).
+     */
+    public void recordBatch(List<SearchHistory> batch) {
+        searchHistoryRepository.saveAll(batch);
+        for (Granularity granularity : Granularity.values()) {
+            Map<LocalDateTime, List<SearchHistory>> byBucket = batch.stream()
+                .collect(Collectors.groupingBy(history -> granularity.truncate(history.getCreatedAt())));
+            byBucket.forEach((bucketStart, events) -> mergeIntoBuckets(granularity, bucketStart, events));
+        }
+    }
+    
+    private void mergeIntoBuckets(Granularity granularity, LocalDateTime bucketStart, List<SearchHistory> events) {
+        List<String> queries = events.stream().map(SearchHistory::getQuery).distinct().collect(Collectors.toList());
+        Map<String, QueryStatsBucket> buckets = queryStatsBucketRepository
+            .findByGranularityAndBucketStartAndQueryIn(granularity, bucketStart, queries).stream()
+            .collect(Collectors.toMap(QueryStatsBucket::getQuery, Function.identity(), (a, b) -> a, HashMap::new));
+        
+        for (SearchHistory event : events) {
+            QueryStatsBucket bucket = buckets.computeIfAbsent(event.getQuery(),
+                query -> new QueryStatsBucket(granularity, bucketStart, query));
+            bucket.record(event.getSearchTimeMs() != null ? event.getSearchTimeMs() : 0L);
+        }
+        queryStatsBucketRepository.saveAll(buckets.values());
+    }
+    
+    @Transactional(readOnly = true)
+    public List<Object[]> getPopularQueries(Duration window) {
+        Granularity granularity = granularityFor(window);
+        return queryStatsBucketRepository.findTopQueriesByFrequency(granularity, windowStart(granularity, window));
+    }
+    
+    @Transactional(readOnly = true)
+    public Double getAverageSearchTime(Duration window) {
+        Granularity granularity = granularityFor(window);
+        return queryStatsBucketRepository.getAverageSearchTime(granularity, windowStart(granularity, window));
+    }
+    
+    /**
+     * Merges the latency histograms of every bucket in the window and estimates percentiles
+     * from the bin upper bounds.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getLatencyDistribution(Duration window) {
+        Granularity granularity = granularityFor(window);
+        long[] histogram = new long[QueryStatsBucket.LATENCY_BOUNDS_MS.length + 1];
+        long count = 0;
+        long totalTimeMs = 0;
+        long maxTimeMs = 0;
+        for (QueryStatsBucket bucket : queryStatsBucketRepository
+                .findByGranularityAndBucketStartGreaterThanEqual(granularity, windowStart(granularity, window))) {
+            long[] bins = bucket.getLatencyHistogram();
+            for (int i = 0; i < histogram.length && i < bins.length; i++) {
+                histogram[i] += bins[i];
+            }
+            count += bucket.getQueryCount();
+            totalTimeMs += bucket.getTotalTimeMs();
+            maxTimeMs = Math.max(maxTimeMs, bucket.getMaxTimeMs());
+        }
+        
+        Map<String, Long> bins = new LinkedHashMap<>();
+        for (int i = 0; i < QueryStatsBucket.LATENCY_BOUNDS_MS.length; i++) {
+            bins.put("le_" + QueryStatsBucket.LATENCY_BOUNDS_MS[i], histogram[i]);
+        }
+        bins.put("gt_" + QueryStatsBucket.LATENCY_BOUNDS_MS[QueryStatsBucket.LATENCY_BOUNDS_MS.length - 1],
+                histogram[histogram.length - 1]);
+        
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        distribution.put("granularity", granularity);
+        distribution.put("count", count);
+        distribution.put("averageMs", count > 0 ? (double) totalTimeMs / count : 0.0);
+        distribution.put("maxMs", maxTimeMs);
+        distribution.put("p50Ms", percentile(histogram, count, 0.50, maxTimeMs));
+        distribution.put("p95Ms", percentile(histogram, count, 0.95, maxTimeMs));
+        distribution.put("p99Ms", percentile(histogram, count, 0.99, maxTimeMs));
+        distribution.put("histogram", bins);
+        return distribution;
+    }
+    
+    /**
+     * Drops raw history rows and rollup buckets that have outlived their retention period.
+     */
+    @Scheduled(cron = "${search.stats.retention-cron:0 15 * * * *}")
+    public void applyRetention() {
+        LocalDateTime now = LocalDateTime.now();
+        int history = searchHistoryRepository.deleteCreatedBefore(now.minusDays(historyRetentionDays));
+        int minutes = queryStatsBucketRepository.deleteOlderThan(Granularity.MINUTE, now.minusHours(minuteRetentionHours));
+        int hours = queryStatsBucketRepository.deleteOlderThan(Granularity.HOUR, now.minusDays(hourRetentionDays));
+        int days = queryStatsBucketRepository.deleteOlderThan(Granularity.DAY, now.minusDays(dayRetentionDays));
+        logger.info("Retention removed {} search history rows and {}/{}/{} minute/hour/day buckets",
+                   history, minutes, hours, days);
+    }
+    
+    /**
+     * Picks the coarsest granularity that still resolves the window reasonably: minutes up to
+     * two hours, hours up to a week, days beyond that.
+     */
+    static Granularity granularityFor(Duration window) {
+        if (window.compareTo(Duration.ofHours(2)) <= 0) {
+            return Granularity.MINUTE;
+        }
+        if (window.compareTo(Duration.ofDays(7)) <= 0) {
+            return Granularity.HOUR;
+        }
+        return Granularity.DAY;
+    }
+    
+    private static LocalDateTime windowStart(Granularity granularity, Duration window) {
+        return granularity.truncate(LocalDateTime.now().minus(window));
+    }
+    
+    private static long percentile(long[] histogram, long count, double quantile, long maxTimeMs) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < QueryStatsBucket.LATENCY_BOUNDS_MS.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return Math.min(QueryStatsBucket.LATENCY_BOUNDS_MS[i], maxTimeMs);
+            }
+        }
+        return maxTimeMs;
+    }
+}
\ No newline at end of file
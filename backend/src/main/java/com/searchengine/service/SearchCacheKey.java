@@ -0,0 +1,52 @@
+package com.searchengine.service;
+
+import java.util.Objects;
+
+/**
+ * Identifies one cached search page. The searcher generation is part of the key so an entry
+ * can never be served from an index state other than the one it was computed against.
+ */
+class SearchCacheKey {
+
+    private final String query;
+    private final int page;
+    private final int pageSize;
+    private final String cursor;
+    private final SearchOptions options;
+    private final long generation;
+
+    SearchCacheKey(String query, int page, int pageSize, String cursor, SearchOptions options, long generation) {
+        this.query = normalize(query);
+        this.page = page;
+        this.pageSize = pageSize;
+        this.cursor = cursor;
+        this.options = options;
+        this.generation = generation;
+    }
+
+    /**
+     * Collapses whitespace only. Case is kept because the query parser treats AND/OR/NOT
+     * as operators only in upper case.
+     */
+    static String normalize(String query) {
+        return query == null ? "" : query.trim().replaceAll("\\s+", " ");
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SearchCacheKey that = (SearchCacheKey) o;
+        return page == that.page
+                && pageSize == that.pageSize
+                && generation == that.generation
+                && query.equals(that.query)
+                && Objects.equals(cursor, that.cursor)
+                && Objects.equals(options, that.options);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(query, page, pageSize, cursor, options, generation);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.searchengine.service;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.util.BytesRef;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Set;
+
+/**
+ * Opaque pagination cursor handed to clients. It encodes the last hit of a page so the
+ * next page can be fetched with {@code IndexSearcher.searchAfter} instead of collecting
+ * and discarding every preceding page. A cursor carries the hit's sort values, which end
+ * with its document id, and the sort they belong to. It holds no docID, so it still points
+ * at the same place after the index is refreshed or merged.
+ */
+public final class SearchCursor {
+
+    private static final String VERSION = "v3";
+    // Earlier cursors ended with a docID, which is only meaningful for the searcher that issued them
+    private static final Set<String> DOC_ID_VERSIONS = Set.of("v1", "v2");
+    // Every sort ends with the unique document id, so no other hit compares equal to the last one
+    private static final int AFTER_DOC = Integer.MAX_VALUE;
+
+    private SearchCursor() {
+    }
+
+    public static String encode(ScoreDoc lastHit, SearchSort sort) {
+        if (lastHit == null) {
+            return null;
+        }
+        StringBuilder raw = new StringBuilder();
+        raw.append(VERSION).append(':').append(sort.name());
+        for (Object value : ((FieldDoc) lastHit).fields) {
+            raw.append(':').append(encodeValue(value));
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor for a search with the given sort; a cursor from a differently sorted
+     * search is rejected because its position means nothing in this order.
+     */
+    public static ScoreDoc decode(String cursor, SearchSort sort) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length >= 3 && VERSION.equals(parts[0])) {
+                if (!sort.name().equals(parts[1])) {
+                    throw new IllegalArgumentException("Cursor belongs to a search sorted by " + parts[1]);
+                }
+                Object[] fields = Arrays.stream(parts, 2, parts.length).map(SearchCursor::decodeValue).toArray();
+                return new FieldDoc(AFTER_DOC, Float.NaN, fields);
+            }
+            if (parts.length > 0 && DOC_ID_VERSIONS.contains(parts[0])) {
+                throw new IllegalArgumentException("Cursor from an earlier release; start the search again");
+            }
+            throw new IllegalArgumentException("Unsupported cursor format");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor: " + cursor, e);
+        }
+    }
+
+    private static String encodeValue(Object value) {
+        if (value == null) {
+            return "N";
+        }
+        if (value instanceof Long number) {
+            return "L" + number;
+        }
+        if (value instanceof Float score) {
+            return "F" + Float.floatToIntBits(score);
+        }
+        if (value instanceof BytesRef bytes) {
+            return "B" + Base64.getUrlEncoder().withoutPadding().encodeToString(BytesRef.deepCopyOf(bytes).bytes);
+        }
+        throw new IllegalArgumentException("Unsupported sort value " + value.getClass().getName());
+    }
+
+    private static Object decodeValue(String value) {
+        if (value.equals("N")) {
+            return null;
+        }
+        if (value.startsWith("L")) {
+            return Long.parseLong(value.substring(1));
+        }
+        if (value.startsWith("F")) {
+            return Float.intBitsToFloat(Integer.parseInt(value.substring(1)));
+        }
+        if (value.startsWith("B")) {
+            return new BytesRef(Base64.getUrlDecoder().decode(value.substring(1)));
+        }
+        throw new IllegalArgumentException("Unsupported sort value " + value);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+package com.searchengine.service;
+
+import com.searchengine.model.SearchHistory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Takes search history off the request path. Events are queued in memory and written by a
+ * background thread with batched inserts, together with their rollup buckets; when the queue
+ * backs up, events are dropped or sampled rather than slowing searches down.
+ */
+@Service
+public class SearchHistoryWriter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SearchHistoryWriter.class);
+    
+    public enum OverloadPolicy { DROP, SAMPLE }
+    
+    @Autowired
+    private QueryStatsService queryStatsService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${search.history.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    @Value("${search.history.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${search.history.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+    
+    @Value("${search.history.overload-policy:SAMPLE}")
+    private OverloadPolicy overloadPolicy;
+    
+    @Value("${search.history.sample-rate:0.1}")
+    private double sampleRate;
+    
+    private BlockingQueue<SearchHistory> queue;
+    private ScheduledExecutorService drainScheduler;
+    private final AtomicBoolean drainRequested = new AtomicBoolean(false);
+    private Counter writtenCounter;
+    private Counter queueFullCounter;
+    private Counter sampledOutCounter;
+    private Counter writeFailedCounter;
+    
+    @PostConstruct
+    public void initialize() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        
+        writtenCounter = Counter.builder("search.history.events.written")
+                .description("Search history events persisted")
+                .register(meterRegistry);
+        queueFullCounter = Counter.builder("search.history.events.dropped")
+                .description("Search history events discarded under overload")
+                .tag("reason", "queue_full")
+                .register(meterRegistry);
+        sampledOutCounter = Counter.builder("search.history.events.dropped")
+                .description("Search history events discarded under overload")
+                .tag("reason", "sampled")
+                .register(meterRegistry);
+        writeFailedCounter = Counter.builder("search.history.events.dropped")
+                .description("Search history events discarded under overload")
+                .tag("reason", "write_failed")
+                .register(meterRegistry);
+        Gauge.builder("search.history.queue.size", queue, BlockingQueue::size)
+                .description("Search history events waiting to be written")
+                .register(meterRegistry);
+        
+        drainScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "SearchEngine-History-Writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        drainScheduler.scheduleWithFixedDelay(this::drainQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        drainScheduler.shutdown();
+        drainScheduler.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+        drainQuietly();
+    }
+    
+    /**
+     * Queues one history event without blocking. Returns false when the event was dropped.
+     */
+    public boolean record(String query, int resultsCount, long searchTimeMs) {
+        // Past three quarters full, the SAMPLE policy keeps only a fraction of new events
+        if (overloadPolicy == OverloadPolicy.SAMPLE && queue.size() >= queueCapacity * 3 / 4
+                && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            sampledOutCounter.increment();
+            return false;
+        }
+        if (!queue.offer(new SearchHistory(query, resultsCount, searchTimeMs))) {
+            queueFullCounter.increment();
+            return false;
+        }
+        
+        if (queue.size() >= batchSize && drainRequested.compareAndSet(false, true)) {
+            drainScheduler.execute(this::drainQuietly);
+        }
+        return true;
+    }
+    
+    /**
+     * Writes every queued event on the calling thread and returns how many were written.
+     * Only the background drainer and tests call this; readers accept being up to one flush
+     * interval behind. A batch that fails to write is counted as dropped rather than retried,
+     * so one bad event cannot wedge the queue.
+     */
+    public synchronized int flush() {
+        drainRequested.set(false);
+        int written = 0;
+        List<SearchHistory> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                queryStatsService.recordBatch(batch);
+                written += batch.size();
+                writtenCounter.increment(batch.size());
+            } catch (RuntimeException e) {
+                writeFailedCounter.increment(batch.size());
+                logger.error("Dropped {} search history events after a failed write: {}", batch.size(),
+                        e.getMessage(), e);
+            }
+            batch.clear();
+        }
+        return written;
+    }
+    
+    public int getQueuedEvents() {
+        return queue.size();
+    }
+    
+    private void drainQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Error writing search history batch: {}", e.getMessage(), e);
+        }
+    }
+}
\ No newline at end of file
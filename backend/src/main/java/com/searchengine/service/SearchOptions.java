@@ -0,0 +1,207 @@
+package com.searchengine.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Per-request search settings beyond the query text and page position.
+ */
+public class SearchOptions {
+
+    /** Result fields that are only returned when explicitly requested. */
+    public static final Set<String> OPTIONAL_FIELDS = Set.of(
+            "content", "contentType", "fileSize", "createdAt", "updatedAt");
+
+    private Set<String> fields = Collections.emptySet();
+    // Time budget in milliseconds; null means the server default
+    private Long timeoutMs;
+    // Filters; an empty set or a null bound leaves that dimension unrestricted
+    private Set<String> contentTypes = Collections.emptySet();
+    private LocalDateTime createdFrom;
+    private LocalDateTime createdTo;
+    private Long minFileSize;
+    private Long maxFileSize;
+    private boolean facets;
+    private SearchSort sort = SearchSort.RELEVANCE;
+
+    public static SearchOptions defaults() {
+        return new SearchOptions();
+    }
+
+    /**
+     * Parses a comma-separated {@code fields} parameter. Without it results carry only
+     * id, title, url, score and the highlighted snippet.
+     */
+    public static Set<String> parseFields(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return Collections.emptySet();
+        }
+        Set<String> parsed = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        for (String field : parsed) {
+            if (!OPTIONAL_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Unknown result field: " + field);
+            }
+        }
+        return Collections.unmodifiableSet(parsed);
+    }
+
+    /**
+     * Parses a comma-separated {@code contentType} filter; a hit must match one of the types.
+     */
+    public static Set<String> parseContentTypes(String contentTypes) {
+        if (contentTypes == null || contentTypes.isBlank()) {
+            return Collections.emptySet();
+        }
+        Set<String> parsed = Arrays.stream(contentTypes.split(","))
+                .map(String::trim)
+                .filter(type -> !type.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return Collections.unmodifiableSet(parsed);
+    }
+
+    /**
+     * Parses an ISO-8601 date ({@code 2024-01-31}, meaning its start) or date-time.
+     */
+    public static LocalDateTime parseDateTime(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        try {
+            return value.contains("T") ? LocalDateTime.parse(value.trim()) : LocalDate.parse(value.trim()).atStartOfDay();
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+    }
+
+    public Set<String> getFields() {
+        return fields;
+    }
+
+    public SearchOptions setFields(Set<String> fields) {
+        this.fields = fields != null ? fields : Collections.emptySet();
+        return this;
+    }
+
+    public boolean includesField(String field) {
+        return fields.contains(field);
+    }
+
+    public Long getTimeoutMs() {
+        return timeoutMs;
+    }
+
+    public SearchOptions setTimeoutMs(Long timeoutMs) {
+        if (timeoutMs != null && timeoutMs <= 0) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeoutMs);
+        }
+        this.timeoutMs = timeoutMs;
+        return this;
+    }
+
+    public Set<String> getContentTypes() {
+        return contentTypes;
+    }
+
+    public SearchOptions setContentTypes(Set<String> contentTypes) {
+        this.contentTypes = contentTypes != null ? contentTypes : Collections.emptySet();
+        return this;
+    }
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public LocalDateTime getCreatedTo() {
+        return createdTo;
+    }
+
+    /**
+     * Restricts hits to documents created in {@code [from, to)}; either bound may be null.
+     */
+    public SearchOptions setCreatedRange(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Empty creation date range: " + from + " to " + to);
+        }
+        this.createdFrom = from;
+        this.createdTo = to;
+        return this;
+    }
+
+    public Long getMinFileSize() {
+        return minFileSize;
+    }
+
+    public Long getMaxFileSize() {
+        return maxFileSize;
+    }
+
+    /**
+     * Restricts hits to files of {@code [min, max]} bytes; either bound may be null.
+     */
+    public SearchOptions setFileSizeRange(Long min, Long max) {
+        if ((min != null && min < 0) || (max != null && max < 0)) {
+            throw new IllegalArgumentException("File sizes must not be negative");
+        }
+        if (min != null && max != null && min > max) {
+            throw new IllegalArgumentException("Empty file size range: " + min + " to " + max);
+        }
+        this.minFileSize = min;
+        this.maxFileSize = max;
+        return this;
+    }
+
+    public boolean hasFilters() {
+        return !contentTypes.isEmpty() || createdFrom != null || createdTo != null
+                || minFileSize != null || maxFileSize != null;
+    }
+
+    public boolean isFacets() {
+        return facets;
+    }
+
+    public SearchOptions setFacets(boolean facets) {
+        this.facets = facets;
+        return this;
+    }
+
+    public SearchSort getSort() {
+        return sort;
+    }
+
+    public SearchOptions setSort(SearchSort sort) {
+        this.sort = sort != null ? sort : SearchSort.RELEVANCE;
+        return this;
+    }
+
+    // The time budget is left out: only complete results are cached, and those do not depend on it
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SearchOptions that = (SearchOptions) o;
+        return facets == that.facets
+                && sort == that.sort
+                && Objects.equals(fields, that.fields)
+                && Objects.equals(contentTypes, that.contentTypes)
+                && Objects.equals(createdFrom, that.createdFrom)
+                && Objects.equals(createdTo, that.createdTo)
+                && Objects.equals(minFileSize, that.minFileSize)
+                && Objects.equals(maxFileSize, that.maxFileSize);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fields, contentTypes, createdFrom, createdTo, minFileSize, maxFileSize, facets, sort);
+    }
+}
\ No newline at end of file
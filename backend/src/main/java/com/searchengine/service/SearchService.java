@@ -1,26 +1,36 @@
 package com.searchengine.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.searchengine.dto.SearchResponseDto;
 import com.searchengine.dto.SearchResultDto;
 import com.searchengine.model.Document;
 import com.searchengine.model.SearchHistory;
 import com.searchengine.repository.DocumentRepository;
 import com.searchengine.repository.SearchHistoryRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.apache.lucene.queryparser.classic.ParseException;
+import org.apache.lucene.search.ScoreDoc;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.io.IOException;
-import java.time.LocalDateTime;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -38,29 +48,69 @@ public class SearchService {
     @Autowired
     private SearchHistoryRepository searchHistoryRepository;
     
+    @Autowired
+    private SearchHistoryWriter searchHistoryWriter;
+    
+    @Autowired
+    private QueryStatsService queryStatsService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${search.cache.max-entries:10000}")
+    private long cacheMaxEntries;
+    
+    @Value("${search.cache.ttl-seconds:300}")
+    private long cacheTtlSeconds;
+    
+    private Cache<SearchCacheKey, SearchResponseDto> resultCache;
+    
+    @PostConstruct
+    public void initializeCache() {
+        // Caffeine's W-TinyLFU admission keeps the hot head of the query distribution resident
+        resultCache = Caffeine.newBuilder()
+            .maximumSize(cacheMaxEntries)
+            .expireAfterWrite(Duration.ofSeconds(cacheTtlSeconds))
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, resultCache, "search.results");
+    }
+    
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public SearchResponseDto search(String query, int page, int pageSize) {
+        return search(query, page, pageSize, null, SearchOptions.defaults());
+    }
+    
+    /**
+     * Searches one page of results. When a cursor from a previous response is supplied the
+     * page continues directly after it, so deep pages cost the same as the first one.
+     * Runs outside a transaction: result metadata comes from the index, not the database.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public SearchResponseDto search(String query, int page, int pageSize, String cursor, SearchOptions options) {
         long startTime = System.currentTimeMillis();
+        ScoreDoc after = SearchCursor.decode(cursor, options.getSort());
         
         try {
-            // Perform Lucene search
-            int maxResults = (page + 1) * pageSize; // Get more results for pagination
-            List<SearchResultDto> allResults = luceneSearchService.search(query, maxResults);
-            
-            // Apply pagination
-            int startIndex = page * pageSize;
-            int endIndex = Math.min(startIndex + pageSize, allResults.size());
-            List<SearchResultDto> paginatedResults = new ArrayList<>();
-            
-            if (startIndex < allResults.size()) {
-                paginatedResults = allResults.subList(startIndex, endIndex);
+            // Keys carry the searcher generation, so pages cached before a refresh are never served again;
+            // they are not invalidated, but nothing hits them and they are evicted by size or TTL
+            SearchCacheKey cacheKey = new SearchCacheKey(query, page, pageSize, cursor, options,
+                    luceneSearchService.getSearcherGeneration());
+            SearchResponseDto cached = resultCache.getIfPresent(cacheKey);
+            if (cached != null) {
+                long searchTime = System.currentTimeMillis() - startTime;
+                saveSearchHistory(query, cached.getTotalResults(), searchTime);
+                return copyOf(cached, query, searchTime);
             }
             
-            // Enrich results with database information
-            for (SearchResultDto result : paginatedResults) {
-                Optional<Document> doc = documentRepository.findById(result.getId());
-                if (doc.isPresent()) {
-                    result.setCreatedAt(doc.get().getCreatedAt());
-                }
+            // Perform Lucene search for the requested page only
+            LuceneSearchResult luceneResult = luceneSearchService.search(query, page * pageSize, pageSize, after, options);
+            List<SearchResultDto> paginatedResults = luceneResult.getResults();
+            int totalResults = (int) Math.min(luceneResult.getTotalHits(), Integer.MAX_VALUE);
+            
+            // Metadata is read from doc values; only hits missing it go to the database
+            if (options.includesField("createdAt")) {
+                enrichMissingCreatedAt(paginatedResults);
             }
             
             long searchTime = System.currentTimeMillis() - startTime;
@@ -69,10 +119,16 @@ public class SearchService {
             SearchResponseDto response = new SearchResponseDto();
             response.setQuery(query);
             response.setResults(paginatedResults);
-            response.setTotalResults(allResults.size());
+            response.setTotalResults(totalResults);
+            response.setTotalResultsRelation(luceneResult.isTotalHitsExact() ? "eq" : "gte");
             response.setPage(page);
             response.setPageSize(pageSize);
             response.setSearchTimeMs(searchTime);
+            response.setTimedOut(luceneResult.isTimedOut());
+            response.setFacets(luceneResult.getFacets());
+            if (paginatedResults.size() == pageSize) {
+                response.setNextCursor(SearchCursor.encode(luceneResult.getLastHit(), options.getSort()));
+            }
             
             // Add suggestions
             try {
@@ -83,23 +139,48 @@ public class SearchService {
                 response.setSuggestions(new ArrayList<>());
             }
             
+            // Partial results would otherwise be served to later requests with a larger budget
+            if (!luceneResult.isTimedOut()) {
+                resultCache.put(cacheKey, response);
+            }
+            
             // Save search history
-            saveSearchHistory(query, allResults.size(), searchTime);
+            saveSearchHistory(query, totalResults, searchTime);
             
             logger.info("Search completed for query '{}': {} results in {}ms", 
-                       query, allResults.size(), searchTime);
+                       query, totalResults, searchTime);
             
             return response;
             
         } catch (IOException | ParseException e) {
             logger.error("Error performing search for query '{}': {}", query, e.getMessage(), e);
             
+            // The database fallback can neither filter, sort nor count facets, so it would answer a different question
+            if (options.hasFilters() || options.isFacets() || options.getSort() != SearchSort.RELEVANCE) {
+                if (e instanceof ParseException) {
+                    throw new IllegalArgumentException("Invalid query: " + e.getMessage(), e);
+                }
+                throw new UncheckedIOException((IOException) e);
+            }
+            
             // Fallback to database search
-            return performDatabaseSearch(query, page, pageSize, startTime);
+            return performDatabaseSearch(query, page, pageSize, options, startTime);
         }
     }
     
-    private SearchResponseDto performDatabaseSearch(String query, int page, int pageSize, long startTime) {
+    private SearchResponseDto copyOf(SearchResponseDto cached, String query, long searchTime) {
+        SearchResponseDto response = new SearchResponseDto(query, cached.getResults(), cached.getTotalResults(), searchTime);
+        response.setTotalResultsRelation(cached.getTotalResultsRelation());
+        response.setPage(cached.getPage());
+        response.setPageSize(cached.getPageSize());
+        response.setSuggestions(cached.getSuggestions());
+        response.setNextCursor(cached.getNextCursor());
+        response.setFacets(cached.getFacets());
+        return response;
+    }
+    
+    private SearchResponseDto performDatabaseSearch(String query, int page, int pageSize, SearchOptions options,
+                                                    long startTime) {
         logger.info("Performing fallback database search for query: {}", query);
         
         try {
@@ -107,7 +188,7 @@ public class SearchService {
             Page<Document> documentPage = documentRepository.findByKeyword(query, pageable);
             
             List<SearchResultDto> results = documentPage.getContent().stream()
-                .map(this::convertToSearchResult)
+                .map(document -> convertToSearchResult(document, options))
                 .collect(Collectors.toList());
             
             long searchTime = System.currentTimeMillis() - startTime;
@@ -141,13 +222,26 @@ public class SearchService {
         }
     }
     
-    private SearchResultDto convertToSearchResult(Document document) {
+    private SearchResultDto convertToSearchResult(Document document, SearchOptions options) {
         SearchResultDto result = new SearchResultDto();
         result.setId(document.getId());
         result.setTitle(document.getTitle());
-        result.setContent(document.getContent());
         result.setUrl(document.getUrl());
-        result.setCreatedAt(document.getCreatedAt());
+        if (options.includesField("content")) {
+            result.setContent(document.getContent());
+        }
+        if (options.includesField("contentType")) {
+            result.setContentType(document.getContentType());
+        }
+        if (options.includesField("fileSize")) {
+            result.setFileSize(document.getFileSize());
+        }
+        if (options.includesField("createdAt")) {
+            result.setCreatedAt(document.getCreatedAt());
+        }
+        if (options.includesField("updatedAt")) {
+            result.setUpdatedAt(document.getUpdatedAt());
+        }
         result.setScore(1.0); // Default score for database results
         
         // Create a simple highlighted content (first 200 characters)
@@ -161,26 +255,52 @@ public class SearchService {
         return result;
     }
     
+    private void enrichMissingCreatedAt(List<SearchResultDto> results) {
+        List<Long> missingIds = results.stream()
+            .filter(result -> result.getCreatedAt() == null)
+            .map(SearchResultDto::getId)
+            .collect(Collectors.toList());
+        if (missingIds.isEmpty()) {
+            return;
+        }
+        
+        Map<Long, Document> documents = documentRepository.findAllById(missingIds).stream()
+            .collect(Collectors.toMap(Document::getId, Function.identity()));
+        for (SearchResultDto result : results) {
+            Document document = documents.get(result.getId());
+            if (result.getCreatedAt() == null && document != null) {
+                result.setCreatedAt(document.getCreatedAt());
+            }
+        }
+    }
+    
     private void saveSearchHistory(String query, int resultsCount, long searchTimeMs) {
-        try {
-            SearchHistory history = new SearchHistory(query, resultsCount, searchTimeMs);
-            searchHistoryRepository.save(history);
-        } catch (Exception e) {
-            logger.warn("Error saving search history for query '{}': {}", query, e.getMessage());
+        if (!searchHistoryWriter.record(query, resultsCount, searchTimeMs)) {
+            logger.debug("Search history event for query '{}' dropped under load", query);
         }
     }
     
+    /**
+     * Recent searches as last written by the history writer, so up to one flush interval behind.
+     */
+    @Transactional(readOnly = true)
     public List<SearchHistory> getRecentSearches(int limit) {
         return searchHistoryRepository.findTop10ByOrderByCreatedAtDesc();
     }
     
+    // Analytics read the rollup buckets as the history writer last merged them; no merge on read
+    @Transactional(readOnly = true)
     public List<Object[]> getPopularQueries(int days) {
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        return searchHistoryRepository.findTopQueriesByFrequency(startDate);
+        return queryStatsService.getPopularQueries(Duration.ofDays(days));
     }
     
+    @Transactional(readOnly = true)
     public Double getAverageSearchTime(int days) {
-        LocalDateTime startDate = LocalDateTime.now().minusDays(days);
-        return searchHistoryRepository.getAverageSearchTime(startDate);
+        return queryStatsService.getAverageSearchTime(Duration.ofDays(days));
+    }
+    
+    @Transactional(readOnly = true)
+    public Map<String, Object> getLatencyDistribution(Duration window) {
+        return queryStatsService.getLatencyDistribution(window);
     }
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.searchengine.service;
+
+/**
+ * Order of search results. Everything except relevance sorts on doc values and skips scoring.
+ */
+public enum SearchSort {
+
+    RELEVANCE("relevance"),
+    CREATED_AT_DESC("createdAt:desc"),
+    CREATED_AT_ASC("createdAt:asc"),
+    TITLE("title");
+
+    private final String parameter;
+
+    SearchSort(String parameter) {
+        this.parameter = parameter;
+    }
+
+    /**
+     * Parses a {@code sort} parameter; a missing one means relevance and {@code createdAt}
+     * alone means newest first.
+     */
+    public static SearchSort parse(String sort) {
+        if (sort == null || sort.isBlank()) {
+            return RELEVANCE;
+        }
+        String value = sort.trim();
+        if ("createdAt".equals(value)) {
+            return CREATED_AT_DESC;
+        }
+        for (SearchSort candidate : values()) {
+            if (candidate.parameter.equals(value)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort: " + sort);
+    }
+
+    public String getParameter() {
+        return parameter;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package com.searchengine.service;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.QueryTimeout;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherFactory;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Opens searchers that score segments in parallel. Segments are grouped into slices of at most
+ * {@code maxDocsPerSlice} documents and {@code maxSegmentsPerSlice} segments, and each slice of
+ * a query runs as one task on the search executor. Without an executor searchers are sequential.
+ */
+class SlicedSearcherFactory extends SearcherFactory {
+
+    private final Executor executor;
+    private final int maxDocsPerSlice;
+    private final int maxSegmentsPerSlice;
+
+    SlicedSearcherFactory(Executor executor, int maxDocsPerSlice, int maxSegmentsPerSlice) {
+        this.executor = executor;
+        this.maxDocsPerSlice = maxDocsPerSlice;
+        this.maxSegmentsPerSlice = maxSegmentsPerSlice;
+    }
+
+    @Override
+    public IndexSearcher newSearcher(IndexReader reader, IndexReader previousReader) {
+        if (executor == null) {
+            return new IndexSearcher(reader);
+        }
+        return new IndexSearcher(reader, executor) {
+            @Override
+            protected LeafSlice[] slices(List<LeafReaderContext> leaves) {
+                return slices(leaves, maxDocsPerSlice, maxSegmentsPerSlice);
+            }
+        };
+    }
+
+    /**
+     * Opens a searcher over an already open reader for a single request, so the time limit is
+     * not shared with other queries. This is cheap: nothing is read until the query runs.
+     */
+    IndexSearcher newSearcher(IndexReader reader, QueryTimeout timeout) {
+        IndexSearcher searcher = newSearcher(reader, (IndexReader) null);
+        searcher.setTimeout(timeout);
+        return searcher;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,279 @@
+package com.searchengine.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.tika.exception.WriteLimitReachedException;
+import org.apache.tika.fork.ForkParser;
+import org.apache.tika.io.TikaInputStream;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.metadata.TikaCoreProperties;
+import org.apache.tika.mime.MediaType;
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Extracts the text of uploaded and on-disk files. Formats with a registered {@link TextExtractor}
+ * are decoded directly; everything else goes through Tika. Text is streamed into a buffer capped
+ * at {@code search.extract.max-chars}, so a huge file never costs more than the cap, and every
+ * Tika parse runs under a time limit on a bounded pool. A parser that ignores the time limit
+ * keeps its thread, so in-process parsing is only suited to trusted files: set
+ * {@code search.extract.isolated} for untrusted input, which runs Tika in forked child JVMs
+ * where a pathological file can exhaust or hang only that child.
+ */
+@Service
+public class TextExtractionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TextExtractionService.class);
+    
+    // Characters kept per document; text beyond this is dropped
+    @Value("${search.extract.max-chars:1000000}")
+    private int maxChars;
+    
+    @Value("${search.extract.timeout-ms:30000}")
+    private long timeoutMs;
+    
+    // Tika parses running at once; a parser stuck past its time limit holds one of these threads
+    @Value("${search.extract.threads:8}")
+    private int threads;
+    
+    // Parses waiting for a thread; beyond this extractions are rejected
+    @Value("${search.extract.queue-capacity:100}")
+    private int queueCapacity;
+    
+    // Parse in forked JVMs instead of the server process; required for untrusted files
+    @Value("${search.extract.isolated:false}")
+    private boolean isolated;
+    
+    @Value("${search.extract.isolated-pool-size:2}")
+    private int isolatedPoolSize;
+    
+    @Value("${search.extract.isolated-heap-mb:512}")
+    private int isolatedHeapMb;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Fast paths for text formats; any other extension goes to Tika
+    @Autowired
+    private List<TextExtractor> textExtractors;
+    
+    private final Map<String, TextExtractor> extractorsByExtension = new HashMap<>();
+    private Parser parser;
+    private ForkParser forkParser;
+    private ThreadPoolExecutor parseExecutor;
+    private Counter truncatedCounter;
+    private Counter timeoutCounter;
+    private Counter rejectedCounter;
+    
+    @PostConstruct
+    public void initialize() {
+        for (TextExtractor extractor : textExtractors) {
+            for (String extension : extractor.getExtensions()) {
+                extractorsByExtension.put(extension, extractor);
+            }
+        }
+        
+        AutoDetectParser autoDetectParser = new AutoDetectParser();
+        if (isolated) {
+            forkParser = new ForkParser(TextExtractionService.class.getClassLoader(), autoDetectParser);
+            forkParser.setPoolSize(isolatedPoolSize);
+            forkParser.setJavaCommand(List.of(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(), "-Xmx" + isolatedHeapMb + "m"));
+            forkParser.setServerParseTimeoutMillis(timeoutMs);
+            parser = forkParser;
+        } else {
+            parser = autoDetectParser;
+        }
+        
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Stuck parsers can pin at most every thread; after that work queues and is then rejected
+        parseExecutor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "SearchEngine-Extract-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        parseExecutor.allowCoreThreadTimeOut(true);
+        
+        truncatedCounter = Counter.builder("search.extract.truncated")
+                .description("Files whose text exceeded the character cap")
+                .register(meterRegistry);
+        timeoutCounter = Counter.builder("search.extract.timeouts")
+                .description("Files whose extraction was aborted by the time limit")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("search.extract.rejected")
+                .description("Files rejected because every extraction thread and queue slot was taken")
+                .register(meterRegistry);
+        
+        logger.info("Text extraction capped at {} characters and {}ms per file{}", maxChars, timeoutMs,
+                isolated ? " in " + isolatedPoolSize + " forked JVMs" : "");
+    }
+    
+    @PreDestroy
+    public void cleanup() {
+        if (forkParser != null) {
+            forkParser.close();
+        }
+        parseExecutor.shutdownNow();
+    }
+    
+    public ExtractedContent extract(Path path) throws IOException {
+        TextExtractor extractor = extractorsByExtension.get(extension(path.getFileName().toString()));
+        if (extractor != null) {
+            // Decoding is linear in the capped input, so these run inline without a time limit
+            return recordTruncation(extractor.extract(path, maxChars), path.toString());
+        }
+        
+        Metadata metadata = new Metadata();
+        metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, path.getFileName().toString());
+        // File-backed streams let parsers such as PDF read randomly instead of buffering the file
+        try (TikaInputStream stream = TikaInputStream.get(path, metadata)) {
+            return extract(stream, metadata, path.toString());
+        }
+    }
+    
+    public ExtractedContent extract(InputStream input, String fileName) throws IOException {
+        TextExtractor extractor = extractorsByExtension.get(extension(fileName));
+        if (extractor != null) {
+            return recordTruncation(extractor.extract(input, fileName, maxChars), fileName);
+        }
+        
+        Metadata metadata = new Metadata();
+        if (fileName != null) {
+            metadata.set(TikaCoreProperties.RESOURCE_NAME_KEY, fileName);
+        }
+        try (TikaInputStream stream = TikaInputStream.get(input)) {
+            return extract(stream, metadata, fileName);
+        }
+    }
+    
+    private ExtractedContent extract(TikaInputStream stream, Metadata metadata, String name) throws IOException {
+        BoundedTextHandler text = new BoundedTextHandler(maxChars);
+        Future<Void> parse;
+        try {
+            parse = parseExecutor.submit(() -> {
+                parser.parse(stream, new BodyContentHandler(text), metadata, new ParseContext());
+                return null;
+            });
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new IOException("Too many extractions in progress; rejected " + name);
+        }
+        
+        try {
+            parse.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The handler stops the parser at its next callback; a parser stuck elsewhere keeps its pool thread
+            text.abort();
+            parse.cancel(true);
+            timeoutCounter.increment();
+            throw new IOException("Extraction of " + name + " timed out after " + timeoutMs + "ms");
+        } catch (InterruptedException e) {
+            text.abort();
+            parse.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while extracting " + name, e);
+        } catch (ExecutionException e) {
+            if (!WriteLimitReachedException.isWriteLimitReached(e.getCause())) {
+                throw new IOException("Failed to extract text from " + name + ": " + e.getCause().getMessage(),
+                        e.getCause());
+            }
+            return recordTruncation(new ExtractedContent(text.toString(), contentType(metadata), true), name);
+        }
+        return new ExtractedContent(text.toString(), contentType(metadata), false);
+    }
+    
+    private ExtractedContent recordTruncation(ExtractedContent content, String name) {
+        if (content.isTruncated()) {
+            truncatedCounter.increment();
+            logger.debug("Text of {} truncated at {} characters", name, maxChars);
+        }
+        return content;
+    }
+    
+    /**
+     * Lower-case extension of a file name without the dot, or an empty string if it has none.
+     */
+    static String extension(String fileName) {
+        if (fileName == null) {
+            return "";
+        }
+        int dot = fileName.lastIndexOf('.');
+        return dot >= 0 ? fileName.substring(dot + 1).toLowerCase() : "";
+    }
+    
+    private static String contentType(Metadata metadata) {
+        // Parameters such as the charset are dropped, matching what detection alone reports
+        MediaType type = MediaType.parse(metadata.get(Metadata.CONTENT_TYPE));
+        return type != null ? type.getBaseType().toString() : MediaType.OCTET_STREAM.toString();
+    }
+    
+    /**
+     * Collects body text up to a character cap and stops the parser once the cap is reached
+     * or the extraction was aborted.
+     */
+    private static class BoundedTextHandler extends DefaultHandler {
+        
+        private final int maxChars;
+        private final StringBuilder text = new StringBuilder();
+        private volatile boolean aborted;
+        
+        BoundedTextHandler(int maxChars) {
+            this.maxChars = maxChars;
+        }
+        
+        void abort() {
+            aborted = true;
+        }
+        
+        @Override
+        public void characters(char[] ch, int start, int length) throws SAXException {
+            if (aborted) {
+                throw new SAXException("Extraction aborted");
+            }
+            int room = maxChars - text.length();
+            if (length > room) {
+                text.append(ch, start, room);
+                throw new WriteLimitReachedException(maxChars);
+            }
+            text.append(ch, start, length);
+        }
+        
+        @Override
+        public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+            characters(ch, start, length);
+        }
+        
+        @Override
+        public String toString() {
+            return text.toString();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package com.searchengine.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * A lightweight extractor for text formats that do not need Tika's detection and parser chain.
+ * {@link TextExtractionService} picks one by file extension and hands everything else to Tika.
+ */
+public interface TextExtractor {
+    
+    /**
+     * Lower-case file extensions, without the dot, that this extractor handles.
+     */
+    Set<String> getExtensions();
+    
+    ExtractedContent extract(Path path, int maxChars) throws IOException;
+    
+    ExtractedContent extract(InputStream input, String fileName, int maxChars) throws IOException;
+}
\ No newline at end of file
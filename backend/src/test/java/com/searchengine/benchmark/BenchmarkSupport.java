@@ -0,0 +1,105 @@
+package com.searchengine.benchmark;
+
+import com.searchengine.model.Document;
+import com.searchengine.service.LuceneSearchService;
+import com.searchengine.service.TextExtractionService;
+import com.searchengine.service.TextExtractor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Builds standalone service instances for benchmarks so they can run without a Spring context.
+ */
+final class BenchmarkSupport {
+
+    private static final String[] WORDS = {
+        "java", "search", "index", "lucene", "spring", "query", "document", "engine",
+        "segment", "commit", "reader", "writer", "token", "analyzer", "score", "field",
+        "cache", "thread", "latency", "throughput", "database", "cluster", "shard", "merge"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    static LuceneSearchService newLuceneSearchService(Path indexDir, Map<String, Object> overrides) throws IOException {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("indexDirectory", indexDir.toString());
+        settings.put("maxStaleMs", 1000L);
+        settings.put("minStaleMs", 25L);
+        settings.put("waitForWrites", false);
+        settings.put("commitMaxPendingOps", 1000);
+        settings.put("commitIntervalMs", 5000L);
+        settings.put("sortByCreatedAt", false);
+        settings.put("highlightMaxLength", 50000);
+        settings.put("highlightBudgetMs", 100L);
+        settings.put("searchThreads", 0);
+        settings.put("searchQueueCapacity", 1000);
+        settings.put("sliceMaxDocs", 50_000);
+        settings.put("sliceMaxSegments", 5);
+        settings.put("queryTimeoutMs", 2000L);
+        settings.put("queryMaxTimeoutMs", 10000L);
+        settings.put("queryMaxClauses", 256);
+        settings.put("queryMaxExpandingTerms", 10);
+        settings.put("queryMaxExpansions", 50);
+        settings.put("queryMaxFuzzyEdits", 1);
+        settings.put("totalHitsThreshold", 1000);
+        settings.putAll(overrides);
+
+        LuceneSearchService service = new LuceneSearchService();
+        settings.forEach((field, value) -> ReflectionTestUtils.setField(service, field, value));
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.initialize();
+        return service;
+    }
+
+    static TextExtractionService newTextExtractionService(List<TextExtractor> extractors) {
+        TextExtractionService service = new TextExtractionService();
+        ReflectionTestUtils.setField(service, "maxChars", 1_000_000);
+        ReflectionTestUtils.setField(service, "timeoutMs", 30_000L);
+        ReflectionTestUtils.setField(service, "threads", 8);
+        ReflectionTestUtils.setField(service, "queueCapacity", 100);
+        ReflectionTestUtils.setField(service, "isolated", false);
+        ReflectionTestUtils.setField(service, "textExtractors", extractors);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.initialize();
+        return service;
+    }
+
+    /**
+     * Generates sentence-structured text where the well-known benchmark words make up about
+     * 5% of the tokens and the rest come from a larger synthetic vocabulary.
+     */
+    static Document randomDocument(long id, int words, Random random) {
+        StringBuilder content = new StringBuilder(words * 8);
+        int sentenceLength = 0;
+        for (int i = 0; i < words; i++) {
+            if (random.nextInt(20) == 0) {
+                content.append(WORDS[random.nextInt(WORDS.length)]);
+            } else {
+                content.append("term").append(random.nextInt(5000));
+            }
+            if (++sentenceLength >= 8 + random.nextInt(12)) {
+                content.append(". ");
+                sentenceLength = 0;
+            } else {
+                content.append(' ');
+            }
+        }
+        Document document = new Document("Document " + id, content.toString(), "http://bench/" + id);
+        document.setId(id);
+        document.setContentType("text/plain");
+        document.setFileSize((long) content.length());
+        return document;
+    }
+
+    static void report(String benchmark, String variant, String metric, double value) {
+        System.out.printf("[benchmark] %-28s %-32s %s=%.1f%n", benchmark, variant, metric, value);
+    }
+}
\ No newline at end of file
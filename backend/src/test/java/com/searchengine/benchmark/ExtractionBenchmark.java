@@ -0,0 +1,102 @@
+package com.searchengine.benchmark;
+
+import com.searchengine.service.MarkupTextExtractor;
+import com.searchengine.service.PlainTextExtractor;
+import com.searchengine.service.TextExtractionService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Extraction throughput (files/sec) per file type: every file through Tika against the
+ * registered fast-path extractors for plain text, HTML and XML.
+ */
+@Tag("benchmark")
+class ExtractionBenchmark {
+
+    private static final int FILES = 500;
+    private static final int ROUNDS = 3;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void extractors() throws Exception {
+        TextExtractionService tika = BenchmarkSupport.newTextExtractionService(List.of());
+        TextExtractionService fastPath = BenchmarkSupport.newTextExtractionService(
+                List.of(new PlainTextExtractor(), new MarkupTextExtractor()));
+        try {
+            Random random = new Random(11);
+            run("txt-2kb", writeFiles("small", "txt", 300, random, text -> text), tika, fastPath);
+            run("txt-2mb", writeFiles("large", "txt", 300_000, random, text -> text), tika, fastPath);
+            run("html-20kb", writeFiles("page", "html", 3000, random, ExtractionBenchmark::toHtml), tika, fastPath);
+            run("xml-20kb", writeFiles("record", "xml", 3000, random, ExtractionBenchmark::toXml), tika, fastPath);
+        } finally {
+            tika.cleanup();
+            fastPath.cleanup();
+        }
+    }
+
+    private interface Wrapper {
+        String wrap(String text);
+    }
+
+    private List<Path> writeFiles(String name, String extension, int words, Random random, Wrapper wrapper)
+            throws Exception {
+        // Large files are few, so each variant still reads a comparable number of bytes
+        int count = words > 10_000 ? FILES / 50 : FILES;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String text = BenchmarkSupport.randomDocument(i, words, random).getContent();
+            Path file = tempDir.resolve(name + "-" + i + "." + extension);
+            Files.writeString(file, wrapper.wrap(text));
+            files.add(file);
+        }
+        return files;
+    }
+
+    private void run(String type, List<Path> files, TextExtractionService tika, TextExtractionService fastPath)
+            throws Exception {
+        measure(type, "tika", files, tika);
+        measure(type, "fast-path", files, fastPath);
+    }
+
+    private void measure(String type, String variant, List<Path> files, TextExtractionService service)
+            throws Exception {
+        // First round warms up the JIT and, for Tika, its parser classes
+        for (Path file : files) {
+            service.extract(file);
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            for (Path file : files) {
+                service.extract(file);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        BenchmarkSupport.report("extraction " + type, variant, "files/sec", files.size() * ROUNDS / seconds);
+    }
+
+    private static String toHtml(String text) {
+        StringBuilder html = new StringBuilder("<!DOCTYPE html><html><head><title>Bench</title>")
+            .append("<style>p { margin: 0 }</style></head><body>");
+        for (String sentence : text.split("\\. ")) {
+            html.append("<p class=\"text\">").append(sentence).append(" &amp; <b>more</b>.</p>\n");
+        }
+        return html.append("</body></html>").toString();
+    }
+
+    private static String toXml(String text) {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<records>\n");
+        for (String sentence : text.split("\\. ")) {
+            xml.append("  <record id=\"1\"><text>").append(sentence).append("</text></record>\n");
+        }
+        return xml.append("</records>").toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,110 @@
+package com.searchengine.benchmark;
+
+import com.searchengine.service.LuceneSearchService;
+import com.searchengine.service.SearchOptions;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.queryparser.classic.MultiFieldQueryParser;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.highlight.Highlighter;
+import org.apache.lucene.search.highlight.QueryScorer;
+import org.apache.lucene.search.highlight.SimpleSpanFragmenter;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Query latency on large documents: the previous re-analyzing Highlighter against the
+ * offsets-based unified highlighter, with and without the per-request highlight budget,
+ * for lean results and for results that include the full content.
+ */
+@Tag("benchmark")
+class HighlightBenchmark {
+
+    private static final int DOCUMENTS = 60;
+    private static final int WORDS_PER_DOCUMENT = 150_000;
+    private static final int ITERATIONS = 50;
+    private static final String[] QUERIES = {"lucene merge", "latency", "shard cluster", "analyzer token"};
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void highlighting() throws Exception {
+        LuceneSearchService writer = BenchmarkSupport.newLuceneSearchService(tempDir.resolve("index"), Map.of());
+        Random random = new Random(7);
+        for (long id = 1; id <= DOCUMENTS; id++) {
+            writer.indexDocument(BenchmarkSupport.randomDocument(id, WORDS_PER_DOCUMENT, random));
+        }
+        writer.flush();
+        writer.cleanup();
+
+        measure("classic-highlighter", Map.of(), this::classicSearch);
+        measure("unified-offsets", Map.of("highlightBudgetMs", 60_000L),
+                service -> service.search(nextQuery(), 0, 10, null, SearchOptions.defaults()));
+        measure("unified-offsets-fields=content", Map.of("highlightBudgetMs", 60_000L),
+                service -> service.search(nextQuery(), 0, 10, null,
+                        SearchOptions.defaults().setFields(Set.of("content"))));
+        measure("unified-offsets-100ms-budget", Map.of("highlightBudgetMs", 100L),
+                service -> service.search(nextQuery(), 0, 10, null, SearchOptions.defaults()));
+        measure("unified-offsets-max-length-10k", Map.of("highlightBudgetMs", 60_000L, "highlightMaxLength", 10000),
+                service -> service.search(nextQuery(), 0, 10, null, SearchOptions.defaults()));
+        measure("no-highlighting", Map.of("highlightBudgetMs", 0L),
+                service -> service.search(nextQuery(), 0, 10, null, SearchOptions.defaults()));
+    }
+
+    private int queryIndex;
+
+    private String nextQuery() {
+        return QUERIES[queryIndex++ % QUERIES.length];
+    }
+
+    /** The pre-change code path: re-analyze each hit's stored content with QueryScorer. */
+    private void classicSearch(LuceneSearchService service) throws Exception {
+        StandardAnalyzer analyzer = new StandardAnalyzer();
+        IndexSearcher searcher = service.acquireSearcher();
+        try {
+            Query query = new MultiFieldQueryParser(new String[] {"title", "content"}, analyzer).parse(nextQuery());
+            TopDocs topDocs = searcher.search(query, 10);
+            QueryScorer scorer = new QueryScorer(query);
+            Highlighter highlighter = new Highlighter(scorer);
+            highlighter.setTextFragmenter(new SimpleSpanFragmenter(scorer, 150));
+            StoredFields storedFields = searcher.storedFields();
+            for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+                String content = storedFields.document(scoreDoc.doc).get("content");
+                highlighter.getBestFragment(analyzer, "content", content);
+            }
+        } finally {
+            service.releaseSearcher(searcher);
+        }
+    }
+
+    private void measure(String variant, Map<String, Object> settings, SearchCall search) throws Exception {
+        LuceneSearchService service = BenchmarkSupport.newLuceneSearchService(tempDir.resolve("index"), settings);
+        try {
+            for (int i = 0; i < 5; i++) {
+                search.run(service);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                search.run(service);
+            }
+            double avgMs = (System.nanoTime() - start) / 1e6 / ITERATIONS;
+            BenchmarkSupport.report("highlight-large-docs", variant, "avg-ms", avgMs);
+        } finally {
+            service.cleanup();
+        }
+    }
+
+    private interface SearchCall {
+        void run(LuceneSearchService service) throws Exception;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.searchengine.benchmark;
+
+import com.searchengine.service.LuceneSearchService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Indexing throughput (docs/sec) under each commit policy, including the final flush.
+ */
+@Tag("benchmark")
+class IndexCommitPolicyBenchmark {
+
+    private static final int DOCUMENTS = 5_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void commitPolicies() throws Exception {
+        run("every-operation", Map.of("commitMaxPendingOps", 1, "commitIntervalMs", 0L));
+        run("every-100-ops", Map.of("commitMaxPendingOps", 100, "commitIntervalMs", 0L));
+        run("every-1000-ops", Map.of("commitMaxPendingOps", 1000, "commitIntervalMs", 0L));
+        run("every-1000ms", Map.of("commitMaxPendingOps", 0, "commitIntervalMs", 1000L));
+        run("explicit-flush-only", Map.of("commitMaxPendingOps", 0, "commitIntervalMs", 0L));
+    }
+
+    private void run(String policy, Map<String, Object> settings) throws Exception {
+        LuceneSearchService service = BenchmarkSupport.newLuceneSearchService(tempDir.resolve(policy), settings);
+        Random random = new Random(42);
+        try {
+            long start = System.nanoTime();
+            for (long id = 1; id <= DOCUMENTS; id++) {
+                service.indexDocument(BenchmarkSupport.randomDocument(id, 200, random));
+            }
+            service.flush();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            BenchmarkSupport.report("commit-policy", policy, "docs/sec", DOCUMENTS / seconds);
+        } finally {
+            service.cleanup();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.searchengine.benchmark;
+
+import com.searchengine.service.LuceneSearchService;
+import com.searchengine.service.SearchOptions;
+import org.apache.lucene.search.IndexSearcher;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Query latency percentiles at 1, 4 and 16 concurrent clients on an index of a few dozen
+ * segments: sequential searchers against searchers that score segment slices on the search pool.
+ */
+@Tag("benchmark")
+class SearchConcurrencyBenchmark {
+
+    private static final int DOCUMENTS = 200_000;
+    private static final int WORDS_PER_DOCUMENT = 60;
+    private static final int DOCUMENTS_PER_SEGMENT = 5_000;
+    private static final int QUERIES_PER_CLIENT = 200;
+    private static final int[] CLIENTS = {1, 4, 16};
+    private static final int SEARCH_THREADS = 4;
+    private static final String[] QUERIES = {
+        "java OR search OR index", "lucene merge", "latency throughput", "segment OR commit OR reader",
+        "cluster shard", "analyzer token field"
+    };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void concurrentSearches() throws Exception {
+        Path indexDir = tempDir.resolve("index");
+        // Merges are left to the default policy; flushing every few thousand docs leaves many segments
+        LuceneSearchService writer = BenchmarkSupport.newLuceneSearchService(indexDir,
+                Map.of("commitMaxPendingOps", 0, "commitIntervalMs", 0L));
+        Random random = new Random(11);
+        for (long id = 1; id <= DOCUMENTS; id++) {
+            writer.indexDocument(BenchmarkSupport.randomDocument(id, WORDS_PER_DOCUMENT, random));
+            if (id % DOCUMENTS_PER_SEGMENT == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        writer.cleanup();
+
+        measure(indexDir, "sequential", Map.of("searchThreads", 1));
+        // Fixed pool size so runs on different machines are comparable
+        measure(indexDir, "parallel-lucene-slices",
+                Map.of("searchThreads", SEARCH_THREADS, "sliceMaxDocs", 250_000, "sliceMaxSegments", 5));
+        measure(indexDir, "parallel-default-slices", Map.of("searchThreads", SEARCH_THREADS));
+        measure(indexDir, "parallel-segment-per-slice",
+                Map.of("searchThreads", SEARCH_THREADS, "sliceMaxDocs", 1, "sliceMaxSegments", 1));
+    }
+
+    private void measure(Path indexDir, String variant, Map<String, Object> settings) throws Exception {
+        LuceneSearchService service = BenchmarkSupport.newLuceneSearchService(indexDir, settings);
+        try {
+            IndexSearcher searcher = service.acquireSearcher();
+            int segments = searcher.getIndexReader().leaves().size();
+            int slices = searcher.getSlices() != null ? searcher.getSlices().length : 1;
+            service.releaseSearcher(searcher);
+
+            for (int i = 0; i < 50; i++) {
+                search(service, i);
+            }
+            for (int clients : CLIENTS) {
+                long[] latencies = run(service, clients);
+                Arrays.sort(latencies);
+                String label = variant + " c=" + clients + " (" + segments + " seg/" + slices + " slices)";
+                BenchmarkSupport.report("search-concurrency", label, "p50-ms", percentile(latencies, 0.50));
+                BenchmarkSupport.report("search-concurrency", label, "p99-ms", percentile(latencies, 0.99));
+            }
+        } finally {
+            service.cleanup();
+        }
+    }
+
+    private long[] run(LuceneSearchService service, int clients) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int client = 0; client < clients; client++) {
+                int offset = client;
+                futures.add(pool.submit(() -> {
+                    long[] latencies = new long[QUERIES_PER_CLIENT];
+                    for (int i = 0; i < QUERIES_PER_CLIENT; i++) {
+                        long start = System.nanoTime();
+                        search(service, offset + i);
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                    return latencies;
+                }));
+            }
+            long[] all = new long[clients * QUERIES_PER_CLIENT];
+            for (int client = 0; client < clients; client++) {
+                System.arraycopy(futures.get(client).get(), 0, all, client * QUERIES_PER_CLIENT, QUERIES_PER_CLIENT);
+            }
+            return all;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void search(LuceneSearchService service, int i) throws Exception {
+        service.search(QUERIES[i % QUERIES.length], 0, 10, null, SearchOptions.defaults());
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.searchengine.benchmark;
+
+import com.searchengine.model.Document;
+import com.searchengine.service.LuceneSearchService;
+import com.searchengine.service.SearchOptions;
+import com.searchengine.service.SearchSort;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Newest-first query latency on an index in insertion order against one sorted by creation
+ * date at write time, with relevance ranking as the baseline. Documents arrive in random date
+ * order, as they do when a crawl or backfill is indexed.
+ */
+@Tag("benchmark")
+class SortedSearchBenchmark {
+
+    private static final int DOCUMENTS = 200_000;
+    private static final int WORDS_PER_DOCUMENT = 60;
+    private static final int DOCUMENTS_PER_SEGMENT = 5_000;
+    private static final int QUERIES = 300;
+    private static final String[] QUERY_TEXTS = {
+        "java OR search OR index", "lucene OR merge", "segment OR commit OR reader", "cache", "thread OR latency"
+    };
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void newestFirstSearches() throws Exception {
+        Path unsorted = build(tempDir.resolve("unsorted"), false);
+        Path sorted = build(tempDir.resolve("sorted"), true);
+
+        measure(unsorted, false, "relevance", SearchSort.RELEVANCE);
+        measure(unsorted, false, "newest-first insertion-order", SearchSort.CREATED_AT_DESC);
+        measure(sorted, true, "newest-first index-sorted", SearchSort.CREATED_AT_DESC);
+        measure(sorted, true, "oldest-first index-sorted", SearchSort.CREATED_AT_ASC);
+    }
+
+    private Path build(Path indexDir, boolean sortByCreatedAt) throws Exception {
+        LuceneSearchService writer = BenchmarkSupport.newLuceneSearchService(indexDir,
+                Map.of("commitMaxPendingOps", 0, "commitIntervalMs", 0L, "sortByCreatedAt", sortByCreatedAt));
+        Random random = new Random(7);
+        LocalDateTime now = LocalDateTime.now();
+        for (long id = 1; id <= DOCUMENTS; id++) {
+            Document document = BenchmarkSupport.randomDocument(id, WORDS_PER_DOCUMENT, random);
+            document.setCreatedAt(now.minusMinutes(random.nextInt(5 * 365 * 24 * 60)));
+            writer.indexDocument(document);
+            if (id % DOCUMENTS_PER_SEGMENT == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+        writer.cleanup();
+        return indexDir;
+    }
+
+    private void measure(Path indexDir, boolean sortByCreatedAt, String variant, SearchSort sort) throws Exception {
+        // One search thread, so the numbers show the work per query rather than the parallelism
+        LuceneSearchService service = BenchmarkSupport.newLuceneSearchService(indexDir,
+                Map.of("searchThreads", 1, "sortByCreatedAt", sortByCreatedAt));
+        try {
+            SearchOptions options = SearchOptions.defaults().setSort(sort);
+            for (int i = 0; i < 50; i++) {
+                service.search(QUERY_TEXTS[i % QUERY_TEXTS.length], 0, 10, null, options);
+            }
+            long[] latencies = new long[QUERIES];
+            for (int i = 0; i < QUERIES; i++) {
+                long start = System.nanoTime();
+                service.search(QUERY_TEXTS[i % QUERY_TEXTS.length], 0, 10, null, options);
+                latencies[i] = System.nanoTime() - start;
+            }
+            Arrays.sort(latencies);
+            BenchmarkSupport.report("sorted-search", variant, "p50-ms", latencies[QUERIES / 2] / 1e6);
+            BenchmarkSupport.report("sorted-search", variant, "p99-ms", latencies[QUERIES * 99 / 100 - 1] / 1e6);
+        } finally {
+            service.cleanup();
+        }
+    }
+}
\ No newline at end of file
@@ -55,4 +55,16 @@ class DocumentControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON));
     }
+
+    @Test
+    void testBulkIndex() throws Exception {
+        mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        
+        mockMvc.perform(post("/api/documents/bulk")
+                .contentType("application/x-ndjson")
+                .content("{\"title\": \"Bulk\", \"content\": \"Bulk content\", \"url\": \"http://test.com/bulk\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failures").isEmpty());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.searchengine.service;
+
+import com.searchengine.repository.DocumentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: each batch commits in its own transaction
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkIndexingServiceTest {
+
+    @Autowired
+    private BulkIndexingService bulkIndexingService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Test
+    void testBulkReportsStatusPerLine() throws Exception {
+        String ndjson = String.join("\n",
+                "{\"title\": \"Bulk alpha\", \"content\": \"Bulkloaded quokka content\", \"url\": \"http://bulk.test/a\"}",
+                "{\"title\": \"Bulk beta\", \"content\": \"Bulkloaded quokka content\", \"url\": \"http://bulk.test/b\"}",
+                "not json",
+                "",
+                "{\"title\": \"No url\"}",
+                "{\"title\": \"Bulk alpha again\", \"content\": \"Bulkloaded quokka revised\", \"url\": \"http://bulk.test/a\"}");
+
+        BulkIndexResult result = index(ndjson);
+
+        assertEquals(2, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(2, result.getFailed());
+        List<Map<String, Object>> failures = result.getFailures();
+        assertEquals(List.of(3, 5), failures.stream().map(failure -> failure.get("line")).toList());
+        assertEquals("Missing url", failures.get(1).get("error"));
+
+        assertEquals("Bulk alpha again", documentRepository.findByUrl("http://bulk.test/a").orElseThrow().getTitle());
+        assertEquals(2, searchService.search("quokka", 0, 10).getTotalResults());
+    }
+
+    @Test
+    void testBulkSpanningSeveralBatches() throws Exception {
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            ndjson.append("{\"title\": \"Batch ").append(i).append("\", \"content\": \"Batched wombat record\", ")
+                .append("\"url\": \"http://bulk.test/batch/").append(i).append("\"}\n");
+        }
+
+        int batchSize = (int) ReflectionTestUtils.getField(bulkIndexingService, "batchSize");
+        ReflectionTestUtils.setField(bulkIndexingService, "batchSize", 10);
+        try {
+            BulkIndexResult result = index(ndjson.toString());
+            assertEquals(25, result.getCreated());
+            assertEquals(0, result.getFailed());
+        } finally {
+            ReflectionTestUtils.setField(bulkIndexingService, "batchSize", batchSize);
+        }
+
+        assertEquals(25, searchService.search("wombat", 0, 50).getTotalResults());
+        assertTrue(documentRepository.findByUrl("http://bulk.test/batch/24").orElseThrow().getIsIndexed());
+    }
+
+    @Test
+    void testBulkKeepsOnlyTheFirstFailures() throws Exception {
+        int maxReportedFailures = (int) ReflectionTestUtils.getField(bulkIndexingService, "maxReportedFailures");
+        ReflectionTestUtils.setField(bulkIndexingService, "maxReportedFailures", 3);
+        try {
+            BulkIndexResult result = index("not json\n".repeat(10));
+            assertEquals(10, result.getFailed());
+            assertEquals(List.of(1, 2, 3), result.getFailures().stream().map(failure -> failure.get("line")).toList());
+        } finally {
+            ReflectionTestUtils.setField(bulkIndexingService, "maxReportedFailures", maxReportedFailures);
+        }
+    }
+
+    private BulkIndexResult index(String ndjson) throws Exception {
+        return bulkIndexingService.indexNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+    }
+}
\ No newline at end of file
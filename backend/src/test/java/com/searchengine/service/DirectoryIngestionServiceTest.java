@@ -0,0 +1,135 @@
+package com.searchengine.service;
+
+import com.searchengine.model.IndexingJob;
+import com.searchengine.repository.DocumentRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the pipeline commits from its own worker threads
+@SpringBootTest
+@ActiveProfiles("test")
+class DirectoryIngestionServiceTest {
+
+    @Autowired
+    private DirectoryIngestionService directoryIngestionService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testDirectoryIngestionIndexesEveryFile() throws Exception {
+        for (int i = 0; i < 25; i++) {
+            Files.writeString(tempDir.resolve("pipeline-" + i + ".txt"), "Pipelined ingestion sample number " + i);
+        }
+        Files.writeString(tempDir.resolve("ignored.bin"), "not indexable");
+
+        JobProgress job = directoryIngestionService.startDirectoryIngestion(tempDir.toString(), false, false);
+        assertNotNull(job.getId());
+
+        awaitFinished(job);
+
+        assertEquals(IndexingJob.Status.COMPLETED, job.getStatus());
+        assertEquals(25, job.getDiscovered());
+        assertEquals(25, job.getProcessed());
+        assertEquals(0, job.getFailed());
+        assertEquals(25, searchService.search("pipelined", 0, 50).getTotalResults());
+    }
+
+    @Test
+    void testSeveralPersistWorkersNeverDuplicateAFile() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            Files.writeString(tempDir.resolve("partitioned-" + i + ".txt"), "Partitioned potoroo sample " + i);
+        }
+
+        int persistWorkers = (int) ReflectionTestUtils.getField(directoryIngestionService, "persistWorkers");
+        int batchSize = (int) ReflectionTestUtils.getField(directoryIngestionService, "batchSize");
+        ReflectionTestUtils.setField(directoryIngestionService, "persistWorkers", 3);
+        ReflectionTestUtils.setField(directoryIngestionService, "batchSize", 4);
+        try {
+            for (int run = 0; run < 2; run++) {
+                JobProgress job = directoryIngestionService.startDirectoryIngestion(tempDir.toString(), false, false);
+                awaitFinished(job);
+                assertEquals(IndexingJob.Status.COMPLETED, job.getStatus());
+                assertEquals(30, job.getProcessed());
+            }
+        } finally {
+            ReflectionTestUtils.setField(directoryIngestionService, "persistWorkers", persistWorkers);
+            ReflectionTestUtils.setField(directoryIngestionService, "batchSize", batchSize);
+        }
+
+        // The second run updated every row in place
+        assertEquals(30, documentRepository.findByUrlIn(IntStream.range(0, 30)
+                .mapToObj(i -> DirectoryIngestionService.fileUrl(tempDir.resolve("partitioned-" + i + ".txt")))
+                .collect(Collectors.toList())).size());
+        assertEquals(30, searchService.search("potoroo", 0, 50).getTotalResults());
+    }
+
+    @Test
+    void testInvalidDirectoryIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> directoryIngestionService.startDirectoryIngestion(tempDir.resolve("missing").toString(), true, false));
+    }
+
+    @Test
+    void testSyncSkipsUnchangedAndRemovesDeletedFiles() throws Exception {
+        for (String name : new String[] {"kept", "edited", "touched", "deleted"}) {
+            Files.writeString(tempDir.resolve(name + ".txt"), "Incremental sync sample " + name);
+        }
+
+        JobProgress first = runSync();
+        assertEquals(4, first.getAdded());
+        assertEquals(0, first.getUnchanged());
+
+        JobProgress second = runSync();
+        assertEquals(0, second.getAdded() + second.getChanged());
+        assertEquals(4, second.getUnchanged());
+        assertEquals(4, second.getProcessed());
+
+        Path edited = tempDir.resolve("edited.txt");
+        Files.writeString(edited, "Incremental sync sample edited with a rewritten body");
+        Files.setLastModifiedTime(edited, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+        Path touched = tempDir.resolve("touched.txt");
+        Files.setLastModifiedTime(touched, FileTime.fromMillis(System.currentTimeMillis() + 5_000));
+        Files.delete(tempDir.resolve("deleted.txt"));
+
+        JobProgress third = runSync();
+        assertEquals(IndexingJob.Status.COMPLETED, third.getStatus());
+        assertEquals(0, third.getAdded());
+        assertEquals(1, third.getChanged());
+        assertEquals(2, third.getUnchanged());
+        assertEquals(1, third.getRemoved());
+        assertEquals(1, searchService.search("rewritten", 0, 10).getTotalResults());
+        assertEquals(3, searchService.search("incremental", 0, 10).getTotalResults());
+    }
+
+    private JobProgress runSync() throws InterruptedException {
+        JobProgress job = directoryIngestionService.startDirectoryIngestion(tempDir.toString(), false, true);
+        awaitFinished(job);
+        return job;
+    }
+
+    private static void awaitFinished(JobProgress job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,77 @@
+package com.searchengine.service;
+
+import com.searchengine.model.WatchRoot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: watched changes are synced by background jobs
+@SpringBootTest
+@ActiveProfiles("test")
+class DirectoryWatchServiceTest {
+
+    @Autowired
+    private DirectoryWatchService directoryWatchService;
+
+    @Autowired
+    private SearchService searchService;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testWatchedChangesAreIndexed() throws Exception {
+        Files.writeString(tempDir.resolve("existing.txt"), "Watched folder existing sample");
+        WatchRoot watch = directoryWatchService.addWatch(tempDir.toString(), true);
+        try {
+            awaitTrue(() -> hits("existing") == 1);
+
+            Path created = tempDir.resolve("created.txt");
+            for (int i = 0; i < 5; i++) {
+                Files.writeString(created, "Watched folder burst revision" + i);
+            }
+            awaitTrue(() -> hits("revision4") == 1);
+            assertEquals(0, hits("revision0"));
+
+            Path nested = Files.createDirectory(tempDir.resolve("nested"));
+            Files.writeString(nested.resolve("deep.txt"), "Watched folder nested sample");
+            awaitTrue(() -> hits("nested") == 1);
+
+            Files.delete(created);
+            awaitTrue(() -> hits("revision4") == 0);
+        } finally {
+            assertTrue(directoryWatchService.removeWatch(watch.getId()));
+        }
+        assertTrue(directoryWatchService.getWatches().stream().noneMatch(w -> w.getId().equals(watch.getId())));
+    }
+
+    @Test
+    void testInvalidDirectoryIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> directoryWatchService.addWatch(tempDir.resolve("missing").toString(), true));
+    }
+
+    private long hits(String query) {
+        try {
+            return searchService.search(query, 0, 10).getTotalResults();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20_000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "Timed out waiting for watched change");
+            Thread.sleep(100);
+        }
+    }
+}
\ No newline at end of file
@@ -1,14 +1,19 @@
 package com.searchengine.service;
 
 import com.searchengine.model.Document;
+import com.searchengine.model.IndexingJob;
 import com.searchengine.repository.DocumentRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -22,6 +27,15 @@ class DocumentIndexingServiceTest {
     @Autowired
     private DocumentRepository documentRepository;
 
+    @Autowired
+    private LuceneSearchService luceneSearchService;
+
+    @Autowired
+    private IndexingJobService indexingJobService;
+
+    @Autowired
+    private IndexOutboxService indexOutboxService;
+
     private Document testDocument;
 
     @BeforeEach
@@ -45,8 +59,10 @@ class DocumentIndexingServiceTest {
         assertEquals(testDocument.getTitle(), indexed.getTitle());
         assertEquals(testDocument.getContent(), indexed.getContent());
         assertEquals(testDocument.getUrl(), indexed.getUrl());
-        assertTrue(indexed.getIsIndexed());
-        assertNotNull(indexed.getIndexedAt());
+        // The write returns before indexing; the outbox has applied it by the time it commits
+        assertEquals(0, indexOutboxService.getPendingEntries());
+        assertTrue(documentIndexingService.getUnindexedDocuments().stream()
+                .noneMatch(document -> document.getId().equals(indexed.getId())));
     }
 
     @Test
@@ -76,4 +92,133 @@ class DocumentIndexingServiceTest {
         Long countAfter = documentIndexingService.getIndexedDocumentCount();
         assertTrue(countAfter > countBefore);
     }
+
+    @Test
+    void testRepeatedReindexKeepsIndexSizeStable() throws Exception {
+        Document indexed = documentIndexingService.indexDocument(
+                testDocument.getTitle(),
+                testDocument.getContent(),
+                testDocument.getUrl()
+        );
+        long sizeAfterIndex = luceneSearchService.getIndexSize();
+
+        for (int i = 0; i < 3; i++) {
+            documentIndexingService.updateDocument(indexed.getId(), "Updated Title " + i,
+                    indexed.getContent(), indexed.getUrl());
+            luceneSearchService.updateDocument(indexed);
+        }
+
+        assertEquals(sizeAfterIndex, luceneSearchService.getIndexSize());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testReindexAdvancesCheckpointAndResumes() throws Exception {
+        Document last = null;
+        for (int i = 0; i < 5; i++) {
+            last = documentIndexingService.indexDocument("Reindex " + i, "Streaming reindex content " + i,
+                    "http://test.com/reindex/" + i);
+        }
+
+        JobProgress fullRun = indexingJobService.startJob("REINDEX", "documents");
+        documentIndexingService.reindexAllDocuments(fullRun, 0).get();
+        assertEquals(IndexingJob.Status.COMPLETED, fullRun.getStatus());
+        assertTrue(fullRun.getProcessed() >= 5);
+        assertEquals(last.getId().toString(), fullRun.snapshot().getCheckpoint());
+
+        JobProgress resumed = indexingJobService.startJob("REINDEX", "documents");
+        documentIndexingService.reindexAllDocuments(resumed, last.getId()).get();
+        assertEquals(0, resumed.getProcessed());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testRebuildSwapsIndexAndRollsBack() throws Exception {
+        Document document = documentIndexingService.indexDocument("Rebuild target", "Blue green rebuild content",
+                "http://test.com/rebuild");
+        String originalIndex = luceneSearchService.getActiveIndexPath();
+
+        JobProgress job = indexingJobService.startJob("REBUILD", "documents");
+        documentIndexingService.rebuildIndex(job).get();
+        assertEquals(IndexingJob.Status.COMPLETED, job.getStatus());
+        assertFalse(luceneSearchService.isRebuildRunning());
+        assertNotEquals(originalIndex, luceneSearchService.getActiveIndexPath());
+        assertEquals(originalIndex, luceneSearchService.getPreviousIndexPath());
+        assertEquals(documentRepository.count(), luceneSearchService.getIndexSize());
+
+        LuceneSearchResult result = luceneSearchService.search("rebuild", 0, 10, null, SearchOptions.defaults());
+        assertTrue(result.getResults().stream().anyMatch(hit -> hit.getId().equals(document.getId())));
+
+        luceneSearchService.rollbackIndex();
+        assertEquals(originalIndex, luceneSearchService.getActiveIndexPath());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testMigrationBuildsNextToOutdatedIndex() throws Exception {
+        Document document = documentIndexingService.indexDocument("Migration target", "Axolotl migration content",
+                "http://test.com/migration");
+        String outdatedIndex = luceneSearchService.getActiveIndexPath();
+        ReflectionTestUtils.setField(luceneSearchService, "indexSchemaVersion", LuceneSearchService.SCHEMA_VERSION - 1);
+
+        documentIndexingService.migrateIndexIfRequired();
+        assertFalse(luceneSearchService.isMigrationRequired());
+        assertFalse(luceneSearchService.isRebuildRunning());
+        assertNotEquals(outdatedIndex, luceneSearchService.getActiveIndexPath());
+        assertEquals(documentRepository.count(), luceneSearchService.getIndexSize());
+
+        LuceneSearchResult result = luceneSearchService.search("axolotl", 0, 10, null, SearchOptions.defaults());
+        assertTrue(result.getResults().stream().anyMatch(hit -> hit.getId().equals(document.getId())));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testOutdatedIndexKeepsServingDuringMigration() throws Exception {
+        Document document = documentIndexingService.indexDocument("Serving target", "Pangolin serving content",
+                "http://test.com/serving");
+        ReflectionTestUtils.setField(luceneSearchService, "indexSchemaVersion", LuceneSearchService.SCHEMA_VERSION - 1);
+
+        luceneSearchService.beginMigration();
+        try {
+            LuceneSearchResult result = luceneSearchService.search("pangolin", 0, 10, null, SearchOptions.defaults());
+            assertTrue(result.getResults().stream().anyMatch(hit -> hit.getId().equals(document.getId())));
+        } finally {
+            luceneSearchService.abortRebuild();
+            ReflectionTestUtils.setField(luceneSearchService, "indexSchemaVersion", LuceneSearchService.SCHEMA_VERSION);
+        }
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testRebuildDropsDocumentsDeletedAfterStreaming() throws Exception {
+        Document kept = documentIndexingService.indexDocument("Kept", "Narwhal kept content", "http://test.com/kept");
+        Document deleted = documentIndexingService.indexDocument("Deleted", "Narwhal deleted content",
+                "http://test.com/deleted");
+
+        luceneSearchService.beginRebuild();
+        try {
+            luceneSearchService.addToRebuild(kept);
+            luceneSearchService.addToRebuild(deleted);
+            // Deleted behind the mirror's back, as if the row went away before the rebuild started
+            documentRepository.deleteById(deleted.getId());
+
+            assertEquals(1, luceneSearchService.removeDeletedFromRebuild(1, documentRepository::findExistingIds));
+        } finally {
+            luceneSearchService.abortRebuild();
+            luceneSearchService.deleteDocument(deleted.getId());
+        }
+    }
+
+    @Test
+    void testWritesFailWhileMigrationIsNotRunning() {
+        Document document = documentRepository.save(new Document("Stalled", "Stalled migration content",
+                "http://test.com/stalled"));
+        ReflectionTestUtils.setField(luceneSearchService, "indexSchemaVersion", LuceneSearchService.SCHEMA_VERSION - 1);
+        try {
+            // An outdated index with no migration to mirror into has nowhere to put the write
+            assertThrows(IOException.class, () -> luceneSearchService.updateDocument(document));
+        } finally {
+            ReflectionTestUtils.setField(luceneSearchService, "indexSchemaVersion", LuceneSearchService.SCHEMA_VERSION);
+        }
+    }
 }
\ No newline at end of file
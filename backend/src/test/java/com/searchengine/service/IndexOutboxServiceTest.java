@@ -0,0 +1,119 @@
+package com.searchengine.service;
+
+import com.searchengine.dto.SearchResultDto;
+import com.searchengine.model.Document;
+import com.searchengine.model.IndexOutboxEntry;
+import com.searchengine.repository.DocumentRepository;
+import com.searchengine.repository.IndexOutboxRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class IndexOutboxServiceTest {
+
+    @Autowired
+    private IndexOutboxService indexOutboxService;
+
+    @Autowired
+    private IndexOutboxRepository outboxRepository;
+
+    @Autowired
+    private DocumentRepository documentRepository;
+
+    @Autowired
+    private SearchService searchService;
+
+    @Autowired
+    private LuceneSearchService luceneSearchService;
+
+    @BeforeEach
+    void drainLeftovers() {
+        // Entries committed by non-transactional tests would otherwise count towards these drains
+        indexOutboxService.drain();
+    }
+
+    @Test
+    void testReplayOfLeftoverEntries() {
+        // A row and its entry committed, but the process stopped before the entry was applied
+        Document document = documentRepository.save(new Document("Outbox replay", "Replayed numbat content", "http://outbox.test/replay"));
+        outboxRepository.save(new IndexOutboxEntry(document.getId(), IndexOutboxEntry.Operation.ADD));
+        ReflectionTestUtils.setField(indexOutboxService, "replayUpToId", outboxRepository.findMaxId());
+
+        assertEquals(1, indexOutboxService.drain());
+        assertEquals(0, indexOutboxService.getPendingEntries());
+        assertEquals(1, searchService.search("numbat", 0, 10).getTotalResults());
+
+        // The same entry again, as if the index commit succeeded but deleting the entry did not
+        outboxRepository.save(new IndexOutboxEntry(document.getId(), IndexOutboxEntry.Operation.ADD));
+        ReflectionTestUtils.setField(indexOutboxService, "replayUpToId", outboxRepository.findMaxId());
+
+        assertEquals(1, indexOutboxService.drain());
+        assertEquals(1, searchService.search("numbat", 0, 10).getTotalResults());
+    }
+
+    @Test
+    void testReplayOfAlreadyIndexedAddsSpanningSeveralBatches() throws Exception {
+        // Rows indexed and committed to Lucene, but the process stopped before their entries were deleted
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Document document = documentRepository.save(new Document("Outbox crash " + i, "Replayed dibbler content",
+                    "http://outbox.test/crash/" + i));
+            luceneSearchService.indexDocument(document);
+            outboxRepository.save(new IndexOutboxEntry(document.getId(), IndexOutboxEntry.Operation.ADD));
+            ids.add(document.getId());
+        }
+        ReflectionTestUtils.setField(indexOutboxService, "replayUpToId", outboxRepository.findMaxId());
+
+        int batchSize = (int) ReflectionTestUtils.getField(indexOutboxService, "batchSize");
+        ReflectionTestUtils.setField(indexOutboxService, "batchSize", 2);
+        try {
+            assertEquals(5, indexOutboxService.drain());
+        } finally {
+            ReflectionTestUtils.setField(indexOutboxService, "batchSize", batchSize);
+        }
+
+        List<Long> hits = searchService.search("dibbler", 0, 20).getResults().stream()
+            .map(SearchResultDto::getId).collect(Collectors.toList());
+        assertEquals(ids.size(), hits.size());
+        assertEquals(Set.copyOf(ids), Set.copyOf(hits));
+    }
+
+    @Test
+    void testEntryForDeletedRowRemovesDocument() {
+        Document document = documentRepository.save(new Document("Outbox delete", "Vanishing bilby content", "http://outbox.test/delete"));
+        indexOutboxService.enqueue(document.getId(), IndexOutboxEntry.Operation.ADD);
+        assertEquals(1, searchService.search("bilby", 0, 10).getTotalResults());
+
+        documentRepository.delete(document);
+        indexOutboxService.enqueue(document.getId(), IndexOutboxEntry.Operation.DELETE);
+        assertEquals(0, searchService.search("bilby", 0, 10).getTotalResults());
+    }
+
+    @Test
+    void testEntriesDeletedOnlyAfterIndexCommit() throws Exception {
+        Document document = documentRepository.save(new Document("Outbox commit", "Committed quoll content", "http://outbox.test/commit"));
+        indexOutboxService.enqueue(document.getId(), IndexOutboxEntry.Operation.ADD);
+        assertEquals(1, searchService.search("quoll", 0, 10).getTotalResults());
+        assertEquals(0, indexOutboxService.getPendingEntries());
+        // Applied and searchable, but kept until a commit makes it durable
+        assertTrue(outboxRepository.findAll().stream().anyMatch(entry -> entry.getDocumentId().equals(document.getId())));
+
+        luceneSearchService.flush();
+        assertEquals(0, indexOutboxService.drain());
+        assertTrue(outboxRepository.findAll().stream().noneMatch(entry -> entry.getDocumentId().equals(document.getId())));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,84 @@
+package com.searchengine.service;
+
+import com.searchengine.dto.IndexingJobDto;
+import com.searchengine.model.IndexingJob;
+import com.searchengine.repository.IndexingJobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class IndexingJobServiceTest {
+
+    @Autowired
+    private IndexingJobService indexingJobService;
+
+    @Autowired
+    private IndexingJobRepository indexingJobRepository;
+
+    @Test
+    void testJobLifecycleIsPersisted() {
+        JobProgress job = indexingJobService.startJob("TEST", "unit");
+        job.setTotal(10);
+        job.recordProcessed(4, 4096);
+        job.recordError("file-5.txt", "unreadable");
+
+        IndexingJobDto running = indexingJobService.getJob(job.getId()).orElseThrow();
+        assertEquals(IndexingJob.Status.RUNNING, running.getStatus());
+        assertEquals(4L, running.getProcessedItems());
+        assertEquals(1L, running.getFailedItems());
+        assertNotNull(running.getEtaSeconds());
+
+        assertTrue(indexingJobService.cancelJob(job.getId()));
+        indexingJobService.finishJob(job);
+
+        IndexingJob stored = indexingJobRepository.findById(job.getId()).orElseThrow();
+        assertEquals(IndexingJob.Status.CANCELLED, stored.getStatus());
+        assertEquals(4096L, stored.getProcessedBytes());
+        assertEquals(1, IndexingJobDto.from(stored).getErrorSamples().size());
+        assertFalse(indexingJobService.cancelJob(job.getId()));
+    }
+
+    @Test
+    void testPruneKeepsMostRecentFinishedJobs() {
+        for (int i = 0; i < 5; i++) {
+            IndexingJob job = new IndexingJob();
+            job.setId("pruned-job-" + i);
+            job.setType("PRUNE_TEST");
+            job.setStatus(i == 0 ? IndexingJob.Status.RUNNING : IndexingJob.Status.COMPLETED);
+            job.setStartedAt(LocalDateTime.now().minusMinutes(10 - i));
+            indexingJobRepository.save(job);
+        }
+
+        assertEquals(2, indexingJobService.pruneFinishedJobs("PRUNE_TEST", 2));
+
+        assertTrue(indexingJobRepository.existsById("pruned-job-0"));
+        assertFalse(indexingJobRepository.existsById("pruned-job-1"));
+        assertFalse(indexingJobRepository.existsById("pruned-job-2"));
+        assertTrue(indexingJobRepository.existsById("pruned-job-3"));
+        assertTrue(indexingJobRepository.existsById("pruned-job-4"));
+    }
+
+    @Test
+    void testRunningJobsFromPreviousInstanceAreInterrupted() {
+        IndexingJob orphan = new IndexingJob();
+        orphan.setId("orphaned-job");
+        orphan.setType("TEST");
+        orphan.setStatus(IndexingJob.Status.RUNNING);
+        orphan.setStartedAt(LocalDateTime.now().minusHours(1));
+        indexingJobRepository.save(orphan);
+
+        indexingJobService.markInterruptedJobs();
+
+        assertEquals(IndexingJob.Status.INTERRUPTED,
+                indexingJobRepository.findById("orphaned-job").orElseThrow().getStatus());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.searchengine.service;
+
+import com.searchengine.model.SearchHistory;
+import com.searchengine.repository.SearchHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class QueryStatsServiceTest {
+
+    @Autowired
+    private QueryStatsService queryStatsService;
+
+    @Autowired
+    private SearchHistoryRepository searchHistoryRepository;
+
+    @Test
+    void testRollupsServePopularQueriesAndLatency() {
+        queryStatsService.recordBatch(List.of(
+                new SearchHistory("rollup alpha", 3, 20L),
+                new SearchHistory("rollup alpha", 3, 40L),
+                new SearchHistory("rollup alpha", 3, 600L),
+                new SearchHistory("rollup beta", 1, 5L)
+        ));
+
+        for (Duration window : List.of(Duration.ofMinutes(30), Duration.ofDays(1), Duration.ofDays(30))) {
+            List<Object[]> popular = queryStatsService.getPopularQueries(window);
+            Object[] top = popular.stream().filter(row -> "rollup alpha".equals(row[0])).findFirst().orElseThrow();
+            assertEquals(3L, ((Number) top[1]).longValue());
+        }
+
+        Map<String, Object> distribution = queryStatsService.getLatencyDistribution(Duration.ofDays(1));
+        assertTrue((Long) distribution.get("count") >= 4);
+        assertEquals(600L, distribution.get("maxMs"));
+        assertNotNull(queryStatsService.getAverageSearchTime(Duration.ofDays(1)));
+    }
+
+    @Test
+    void testRetentionPrunesOldRawHistory() {
+        SearchHistory old = new SearchHistory("retention old", 0, 1L);
+        old.setCreatedAt(LocalDateTime.now().minusDays(365));
+        SearchHistory recent = new SearchHistory("retention recent", 0, 1L);
+        searchHistoryRepository.saveAll(List.of(old, recent));
+
+        queryStatsService.applyRetention();
+
+        assertFalse(searchHistoryRepository.existsById(old.getId()));
+        assertTrue(searchHistoryRepository.existsById(recent.getId()));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.searchengine.service;
+
+import com.searchengine.repository.SearchHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class SearchHistoryWriterTest {
+
+    @Autowired
+    private SearchHistoryWriter searchHistoryWriter;
+
+    @Autowired
+    private SearchHistoryRepository searchHistoryRepository;
+
+    @Test
+    void testFlushWritesQueuedEvents() {
+        searchHistoryWriter.flush();
+        long before = searchHistoryRepository.count();
+
+        for (int i = 0; i < 120; i++) {
+            assertTrue(searchHistoryWriter.record("query " + i, i, 5L));
+        }
+        searchHistoryWriter.flush();
+
+        assertEquals(0, searchHistoryWriter.getQueuedEvents());
+        assertEquals(before + 120, searchHistoryRepository.count());
+    }
+}
\ No newline at end of file
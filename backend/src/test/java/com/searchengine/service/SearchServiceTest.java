@@ -1,14 +1,26 @@
 package com.searchengine.service;
 
 import com.searchengine.dto.SearchResponseDto;
+import com.searchengine.dto.SearchResultDto;
 import com.searchengine.model.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -22,6 +34,12 @@ class SearchServiceTest {
     @Autowired
     private DocumentIndexingService documentIndexingService;
 
+    @Autowired
+    private LuceneSearchService luceneSearchService;
+
+    @Autowired
+    private SearchHistoryWriter searchHistoryWriter;
+
     @BeforeEach
     void setUp() {
         // Index some test documents
@@ -82,9 +100,181 @@ class SearchServiceTest {
         // Perform some searches to generate history
         searchService.search("Java", 0, 10);
         searchService.search("Spring", 0, 10);
+        // History is written in the background; flush to read our own searches
+        searchHistoryWriter.flush();
 
         var recentSearches = searchService.getRecentSearches(10);
         assertNotNull(recentSearches);
         assertTrue(recentSearches.size() >= 2);
     }
+
+    @Test
+    void testSearchWithCursor() {
+        SearchResponseDto firstPage = searchService.search("java spring database", 0, 2, null, SearchOptions.defaults());
+        assertEquals(2, firstPage.getResults().size());
+        assertNotNull(firstPage.getNextCursor());
+
+        SearchResponseDto secondPage = searchService.search("java spring database", 1, 2, firstPage.getNextCursor(),
+                SearchOptions.defaults());
+        assertFalse(secondPage.getResults().isEmpty());
+        secondPage.getResults().forEach(result -> assertTrue(firstPage.getResults().stream()
+                .noneMatch(previous -> previous.getId().equals(result.getId()))));
+    }
+
+    @Test
+    void testSearchReturnsMetadataFromIndex() {
+        SearchResponseDto response = searchService.search("Java", 0, 10, null,
+                SearchOptions.defaults().setFields(SearchOptions.parseFields("contentType,createdAt")));
+
+        assertFalse(response.getResults().isEmpty());
+        response.getResults().forEach(result -> {
+            assertEquals("text/html", result.getContentType());
+            assertNotNull(result.getCreatedAt());
+        });
+    }
+
+    @Test
+    void testCachedResultsInvalidatedByIndexChange() {
+        SearchResponseDto first = searchService.search("tutorial", 0, 10);
+        SearchResponseDto second = searchService.search("tutorial", 0, 10);
+        assertEquals(first.getTotalResults(), second.getTotalResults());
+
+        documentIndexingService.indexDocument(
+                "Lucene Tutorial",
+                "A tutorial on building search with Lucene.",
+                "http://test.com/lucene"
+        );
+
+        SearchResponseDto afterWrite = searchService.search("tutorial", 0, 10);
+        assertEquals(first.getTotalResults() + 1, afterWrite.getTotalResults());
+    }
+
+    @Test
+    void testExpensiveQueriesAreRejected() {
+        assertThrows(QueryRejectedException.class, () -> searchService.search("*ava", 0, 10));
+        assertThrows(QueryRejectedException.class, () -> searchService.search(
+                "a* b* c* d* e* f*", 0, 10));
+
+        // Bounded expansions still run, with partial-result flag unset
+        SearchResponseDto response = searchService.search("jav* programing~", 0, 10);
+        assertTrue(response.getTotalResults() > 0);
+        assertFalse(response.isTimedOut());
+    }
+
+    @Test
+    void testFiltersAndFacets() throws IOException {
+        documentIndexingService.indexFile(new MockMultipartFile("file", "kotlin.txt", "text/plain",
+                "Kotlin notes kept as a plain text file.".getBytes(StandardCharsets.UTF_8)), "Kotlin Notes",
+                "http://test.com/kotlin.txt");
+
+        SearchResponseDto plainText = searchService.search("Kotlin", 0, 10, null,
+                SearchOptions.defaults().setContentTypes(Set.of("text/plain")).setFacets(true));
+        assertTrue(plainText.getTotalResults() > 0);
+        plainText.getResults().forEach(result -> assertEquals("http://test.com/kotlin.txt", result.getUrl()));
+
+        // Facets count the filtered hits only
+        Map<String, Map<String, Long>> facets = plainText.getFacets();
+        assertEquals(Map.of("text/plain", (long) plainText.getTotalResults()), facets.get("contentType"));
+        assertEquals((long) plainText.getTotalResults(), facets.get("fileSize").get("<10KB"));
+        assertEquals((long) plainText.getTotalResults(), facets.get("createdAt").get("pastDay"));
+
+        SearchResponseDto large = searchService.search("Java", 0, 10, null,
+                SearchOptions.defaults().setFileSizeRange(10L * 1024 * 1024, null));
+        assertEquals(0, large.getTotalResults());
+
+        LocalDateTime now = LocalDateTime.now();
+        SearchResponseDto recent = searchService.search("Java", 0, 10, null,
+                SearchOptions.defaults().setCreatedRange(now.minusDays(1), now.plusDays(1)));
+        assertTrue(recent.getTotalResults() > 0);
+        assertNull(recent.getFacets());
+        SearchResponseDto future = searchService.search("Java", 0, 10, null,
+                SearchOptions.defaults().setCreatedRange(now.plusDays(1), null));
+        assertEquals(0, future.getTotalResults());
+    }
+
+    @Test
+    void testSortedSearch() {
+        SearchOptions newestFirst = SearchOptions.defaults()
+                .setFields(SearchOptions.parseFields("createdAt"))
+                .setSort(SearchSort.parse("createdAt:desc"));
+        SearchResponseDto byDate = searchService.search("Java OR Spring OR Database", 0, 10, null, newestFirst);
+        assertTrue(byDate.getResults().size() > 1);
+        for (int i = 1; i < byDate.getResults().size(); i++) {
+            assertFalse(byDate.getResults().get(i).getCreatedAt()
+                    .isAfter(byDate.getResults().get(i - 1).getCreatedAt()));
+        }
+        // Field-sorted hits are not scored
+        byDate.getResults().forEach(result -> assertNull(result.getScore()));
+
+        // Cursors of sorted searches carry the sort values and continue in the same order
+        SearchOptions byTitle = SearchOptions.defaults().setSort(SearchSort.TITLE);
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        do {
+            SearchResponseDto page = searchService.search("Java OR Spring OR Database", 0, 2, cursor, byTitle);
+            page.getResults().stream().map(SearchResultDto::getTitle).forEach(titles::add);
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        assertTrue(titles.size() >= 3);
+        List<String> sorted = new ArrayList<>(titles);
+        sorted.sort(String.CASE_INSENSITIVE_ORDER);
+        assertEquals(sorted, titles);
+
+        String relevanceCursor = searchService.search("Java OR Spring OR Database", 0, 1).getNextCursor();
+        assertThrows(IllegalArgumentException.class,
+                () -> searchService.search("Java OR Spring OR Database", 0, 1, relevanceCursor, byTitle));
+        assertThrows(IllegalArgumentException.class, () -> SearchSort.parse("score"));
+    }
+
+    @Test
+    void testCursorBreaksScoreTiesByDocumentId() throws Exception {
+        // Equal documents score the same, so only the id orders them
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(documentIndexingService.indexDocument("Tied " + i, "Identical quenda content",
+                    "http://test.com/tied/" + i).getId());
+        }
+
+        List<Long> hits = new ArrayList<>();
+        String cursor = null;
+        do {
+            SearchResponseDto page = searchService.search("quenda", 0, 2, cursor, SearchOptions.defaults());
+            page.getResults().stream().map(SearchResultDto::getId).forEach(hits::add);
+            cursor = page.getNextCursor();
+            // Merging renumbers docIDs; the cursor must still continue where it left off
+            luceneSearchService.optimizeIndex();
+        } while (cursor != null);
+        assertEquals(ids, hits);
+
+        String oldCursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("v1:1065353216:3".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalArgumentException.class, () -> searchService.search("quenda", 0, 2, oldCursor, SearchOptions.defaults()));
+    }
+
+    @Test
+    void testTotalResultsBecomeLowerBoundPastThreshold() {
+        SearchResponseDto exact = searchService.search("Spring OR Database OR Java", 0, 1);
+        assertEquals("eq", exact.getTotalResultsRelation());
+        assertTrue(exact.getTotalResults() >= 3);
+
+        ReflectionTestUtils.setField(luceneSearchService, "totalHitsThreshold", 1);
+        try {
+            SearchResponseDto relevance = searchService.search("Database OR Java OR Spring", 0, 1);
+            assertEquals("gte", relevance.getTotalResultsRelation());
+            assertTrue(relevance.getTotalResults() >= 1);
+
+            // The index is sorted newest first in tests, so this stops early as well
+            SearchResponseDto newest = searchService.search("Java OR Database OR Spring", 0, 1, null,
+                    SearchOptions.defaults().setSort(SearchSort.CREATED_AT_DESC));
+            assertEquals("gte", newest.getTotalResultsRelation());
+
+            // Facets need every hit, so their totals stay exact
+            SearchResponseDto faceted = searchService.search("Java OR Spring OR Database", 0, 1, null,
+                    SearchOptions.defaults().setFacets(true));
+            assertEquals("eq", faceted.getTotalResultsRelation());
+            assertEquals(exact.getTotalResults(), faceted.getTotalResults());
+        } finally {
+            ReflectionTestUtils.setField(luceneSearchService, "totalHitsThreshold", 1000);
+        }
+    }
 }
\ No newline at end of file
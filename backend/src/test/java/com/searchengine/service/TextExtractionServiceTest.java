@@ -0,0 +1,144 @@
+package com.searchengine.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class TextExtractionServiceTest {
+
+    @Autowired
+    private TextExtractionService textExtractionService;
+
+    @Value("${search.extract.max-chars}")
+    private int maxChars;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testSmallFileIsExtractedWhole() throws Exception {
+        Path file = tempDir.resolve("small.txt");
+        Files.writeString(file, "A short plain text file");
+
+        ExtractedContent content = textExtractionService.extract(file);
+
+        assertEquals("A short plain text file", content.getText().trim());
+        assertEquals("text/plain", content.getContentType());
+        assertFalse(content.isTruncated());
+    }
+
+    @Test
+    void testLargeFileIsTruncatedAtCap() throws Exception {
+        Path file = tempDir.resolve("large.txt");
+        Files.writeString(file, "word ".repeat(maxChars / 5 + 1000));
+
+        ExtractedContent content = textExtractionService.extract(file);
+
+        assertTrue(content.isTruncated());
+        assertEquals(maxChars, content.getText().length());
+        assertTrue(content.getText().startsWith("word word"));
+    }
+
+    @Test
+    void testStreamIsDetectedByName() throws Exception {
+        byte[] html = "<html><body><p>Streamed upload</p></body></html>".getBytes(StandardCharsets.UTF_8);
+
+        ExtractedContent content = textExtractionService.extract(new ByteArrayInputStream(html), "page.html");
+
+        assertEquals("Streamed upload", content.getText().trim());
+        assertEquals("text/html", content.getContentType());
+    }
+
+    @Test
+    void testHtmlTagsScriptsAndEntitiesAreStripped() throws Exception {
+        Path file = tempDir.resolve("page.html");
+        Files.writeString(file, "<html><head><title>Skipped</title><script>if (a < b) { x = '</div>'; }</script></head>"
+                + "<body><!-- hidden --><h1>Fast&nbsp;path</h1><p class=\"x>y\">Tom &amp; <b>Je</b>rry&#33;</p></body></html>");
+
+        ExtractedContent content = textExtractionService.extract(file);
+
+        assertEquals("Fast path Tom & Jerry!", content.getText());
+        assertEquals("text/html", content.getContentType());
+    }
+
+    @Test
+    void testXmlCdataAndDeclaredCharsetAreDecoded() throws Exception {
+        Path file = tempDir.resolve("record.xml");
+        String xml = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><record><name>Caf\u00E9</name>"
+                + "<note><![CDATA[a <raw> value]]></note></record>";
+        Files.write(file, xml.getBytes(StandardCharsets.ISO_8859_1));
+
+        ExtractedContent content = textExtractionService.extract(file);
+
+        assertEquals("Caf\u00E9 a <raw> value", content.getText());
+        assertEquals("application/xml", content.getContentType());
+    }
+
+    @Test
+    void testOnlyDeclaredCharsetsAreTrusted() throws Exception {
+        // The words appear in an attribute and in text, but nothing declares a charset
+        Path undeclared = tempDir.resolve("undeclared.htm");
+        Files.write(undeclared, ("<html><body><a href=\"/q?charset=ISO-8859-1\">Caf\u00E9</a> encoding=UTF-16"
+                + "</body></html>").getBytes(StandardCharsets.UTF_8));
+        Path meta = tempDir.resolve("meta.html");
+        Files.write(meta, ("<html><head><meta http-equiv=\"Content-Type\" content=\"text/html; charset=ISO-8859-1\">"
+                + "</head><body>Caf\u00E9</body></html>").getBytes(StandardCharsets.ISO_8859_1));
+
+        assertEquals("Caf\u00E9 encoding=UTF-16", textExtractionService.extract(undeclared).getText());
+        assertEquals("Caf\u00E9", textExtractionService.extract(meta).getText());
+        assertTrue(DirectoryIngestionService.isIndexableFile(undeclared));
+    }
+
+    @Test
+    void testPlainTextCharsetIsDetected() throws Exception {
+        Path legacy = tempDir.resolve("legacy.txt");
+        Files.write(legacy, "na\u00EFve r\u00E9sum\u00E9".getBytes("windows-1252"));
+        Path utf16 = tempDir.resolve("utf16.txt");
+        Files.write(utf16, "\uFEFFwide text".getBytes(StandardCharsets.UTF_16LE));
+
+        assertEquals("na\u00EFve r\u00E9sum\u00E9", textExtractionService.extract(legacy).getText());
+        assertEquals("wide text", textExtractionService.extract(utf16).getText());
+    }
+
+    @Test
+    void testIsolatedModeParsesInForkedJvm() throws Exception {
+        TextExtractionService isolated = new TextExtractionService();
+        ReflectionTestUtils.setField(isolated, "maxChars", maxChars);
+        ReflectionTestUtils.setField(isolated, "timeoutMs", 60_000L);
+        ReflectionTestUtils.setField(isolated, "threads", 1);
+        ReflectionTestUtils.setField(isolated, "queueCapacity", 1);
+        ReflectionTestUtils.setField(isolated, "isolated", true);
+        ReflectionTestUtils.setField(isolated, "isolatedPoolSize", 1);
+        ReflectionTestUtils.setField(isolated, "isolatedHeapMb", 128);
+        // No fast paths, so the file goes through the forked Tika parser
+        ReflectionTestUtils.setField(isolated, "textExtractors", List.of());
+        ReflectionTestUtils.setField(isolated, "meterRegistry", new SimpleMeterRegistry());
+        isolated.initialize();
+        try {
+            Path file = tempDir.resolve("forked.txt");
+            Files.writeString(file, "Parsed outside the server process");
+
+            ExtractedContent content = isolated.extract(file);
+
+            assertEquals("Parsed outside the server process", content.getText().trim());
+            assertEquals("text/plain", content.getContentType());
+        } finally {
+            isolated.cleanup();
+        }
+    }
+}
\ No newline at end of file
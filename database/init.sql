@@ -1,23 +1,29 @@
 -- Initialize the search engine database
 
--- Create documents table
+-- Create documents table (ids are handed out in blocks of 50 so inserts can be batched)
+CREATE SEQUENCE IF NOT EXISTS documents_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS documents (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('documents_seq'),
     title VARCHAR(500) NOT NULL,
     content TEXT,
     url VARCHAR(1000) NOT NULL,
     file_path VARCHAR(1000),
     content_type VARCHAR(100),
     file_size BIGINT,
+    file_modified_at TIMESTAMP,
+    content_hash VARCHAR(64),
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP,
     indexed_at TIMESTAMP,
     is_indexed BOOLEAN DEFAULT FALSE
 );
 
--- Create search_history table
+-- Create search_history table (ids are handed out in blocks of 50 so inserts can be batched)
+CREATE SEQUENCE IF NOT EXISTS search_history_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS search_history (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('search_history_seq'),
     query VARCHAR(1000) NOT NULL,
     results_count INTEGER,
     search_time_ms BIGINT,
@@ -25,6 +31,61 @@ CREATE TABLE IF NOT EXISTS search_history (
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Create query_stats_buckets table (per-minute/hour/day rollups of search_history)
+CREATE SEQUENCE IF NOT EXISTS query_stats_buckets_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS query_stats_buckets (
+    id BIGINT PRIMARY KEY DEFAULT nextval('query_stats_buckets_seq'),
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    query VARCHAR(1000) NOT NULL,
+    query_count BIGINT NOT NULL,
+    total_time_ms BIGINT NOT NULL,
+    max_time_ms BIGINT NOT NULL,
+    latency_histogram BIGINT[] NOT NULL,
+    UNIQUE (granularity, bucket_start, query)
+);
+
+-- Create indexing_jobs table (background indexing job registry)
+CREATE TABLE IF NOT EXISTS indexing_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    source VARCHAR(1000),
+    status VARCHAR(20) NOT NULL,
+    total_items BIGINT,
+    processed_items BIGINT NOT NULL,
+    failed_items BIGINT NOT NULL,
+    processed_bytes BIGINT NOT NULL,
+    added_items BIGINT NOT NULL DEFAULT 0,
+    changed_items BIGINT NOT NULL DEFAULT 0,
+    unchanged_items BIGINT NOT NULL DEFAULT 0,
+    removed_items BIGINT NOT NULL DEFAULT 0,
+    checkpoint VARCHAR(100),
+    error_message VARCHAR(2000),
+    error_samples TEXT,
+    started_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+-- Create watch_roots table (directories kept in sync by the filesystem watcher)
+CREATE TABLE IF NOT EXISTS watch_roots (
+    id BIGSERIAL PRIMARY KEY,
+    path VARCHAR(1000) NOT NULL UNIQUE,
+    recursive BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create index_outbox table (document changes not yet applied to the Lucene index)
+CREATE SEQUENCE IF NOT EXISTS index_outbox_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS index_outbox (
+    id BIGINT PRIMARY KEY DEFAULT nextval('index_outbox_seq'),
+    document_id BIGINT NOT NULL,
+    operation VARCHAR(10) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
 -- Create indexes for better performance
 CREATE INDEX IF NOT EXISTS idx_documents_title ON documents(title);
 CREATE INDEX IF NOT EXISTS idx_documents_url ON documents(url);
@@ -32,6 +93,8 @@ CREATE INDEX IF NOT EXISTS idx_documents_is_indexed ON documents(is_indexed);
 CREATE INDEX IF NOT EXISTS idx_documents_created_at ON documents(created_at);
 CREATE INDEX IF NOT EXISTS idx_search_history_query ON search_history(query);
 CREATE INDEX IF NOT EXISTS idx_search_history_created_at ON search_history(created_at);
+CREATE INDEX IF NOT EXISTS idx_indexing_jobs_started_at ON indexing_jobs(started_at);
+CREATE INDEX IF NOT EXISTS idx_query_stats_buckets_start ON query_stats_buckets(granularity, bucket_start);
 
 -- Insert sample data
 INSERT INTO documents (title, content, url, content_type, is_indexed, indexed_at) VALUES
@@ -0,0 +1,100 @@
+-- Upgrade an existing search engine database to the current schema
+--
+-- init.sql only runs when the database is first created, and the prod profile validates the
+-- schema instead of changing it, so databases created by an earlier version need this script
+-- before the new version starts. It is idempotent and safe to run more than once:
+--
+--   psql -U searchengine -d searchengine -f database/upgrade.sql
+
+BEGIN;
+
+-- Id sequences (ids are handed out in blocks of 50 so inserts can be batched)
+CREATE SEQUENCE IF NOT EXISTS documents_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS search_history_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS query_stats_buckets_seq INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS index_outbox_seq INCREMENT BY 50;
+ALTER SEQUENCE documents_seq INCREMENT BY 50;
+ALTER SEQUENCE search_history_seq INCREMENT BY 50;
+ALTER SEQUENCE query_stats_buckets_seq INCREMENT BY 50;
+ALTER SEQUENCE index_outbox_seq INCREMENT BY 50;
+
+-- Columns added to existing tables
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS file_modified_at TIMESTAMP;
+ALTER TABLE documents ADD COLUMN IF NOT EXISTS content_hash VARCHAR(64);
+
+-- New tables
+CREATE TABLE IF NOT EXISTS query_stats_buckets (
+    id BIGINT PRIMARY KEY DEFAULT nextval('query_stats_buckets_seq'),
+    granularity VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    query VARCHAR(1000) NOT NULL,
+    query_count BIGINT NOT NULL,
+    total_time_ms BIGINT NOT NULL,
+    max_time_ms BIGINT NOT NULL,
+    latency_histogram BIGINT[] NOT NULL,
+    UNIQUE (granularity, bucket_start, query)
+);
+
+CREATE TABLE IF NOT EXISTS indexing_jobs (
+    id VARCHAR(36) PRIMARY KEY,
+    type VARCHAR(50) NOT NULL,
+    source VARCHAR(1000),
+    status VARCHAR(20) NOT NULL,
+    total_items BIGINT,
+    processed_items BIGINT NOT NULL,
+    failed_items BIGINT NOT NULL,
+    processed_bytes BIGINT NOT NULL,
+    added_items BIGINT NOT NULL DEFAULT 0,
+    changed_items BIGINT NOT NULL DEFAULT 0,
+    unchanged_items BIGINT NOT NULL DEFAULT 0,
+    removed_items BIGINT NOT NULL DEFAULT 0,
+    checkpoint VARCHAR(100),
+    error_message VARCHAR(2000),
+    error_samples TEXT,
+    started_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+-- indexing_jobs gained these columns after it was introduced
+ALTER TABLE indexing_jobs ADD COLUMN IF NOT EXISTS added_items BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE indexing_jobs ADD COLUMN IF NOT EXISTS changed_items BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE indexing_jobs ADD COLUMN IF NOT EXISTS unchanged_items BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE indexing_jobs ADD COLUMN IF NOT EXISTS removed_items BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE indexing_jobs ADD COLUMN IF NOT EXISTS checkpoint VARCHAR(100);
+
+CREATE TABLE IF NOT EXISTS watch_roots (
+    id BIGSERIAL PRIMARY KEY,
+    path VARCHAR(1000) NOT NULL UNIQUE,
+    recursive BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS index_outbox (
+    id BIGINT PRIMARY KEY DEFAULT nextval('index_outbox_seq'),
+    document_id BIGINT NOT NULL,
+    operation VARCHAR(10) NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Move each sequence past the ids already in use, and never back past a block already handed out
+SELECT setval('documents_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM documents), (SELECT last_value FROM documents_seq), 1));
+SELECT setval('search_history_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM search_history), (SELECT last_value FROM search_history_seq), 1));
+SELECT setval('query_stats_buckets_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM query_stats_buckets), (SELECT last_value FROM query_stats_buckets_seq), 1));
+SELECT setval('index_outbox_seq', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM index_outbox), (SELECT last_value FROM index_outbox_seq), 1));
+
+-- Rows inserted outside the application draw from the new sequences; the BIGSERIAL ones go
+ALTER TABLE documents ALTER COLUMN id SET DEFAULT nextval('documents_seq');
+ALTER TABLE search_history ALTER COLUMN id SET DEFAULT nextval('search_history_seq');
+DROP SEQUENCE IF EXISTS documents_id_seq;
+DROP SEQUENCE IF EXISTS search_history_id_seq;
+
+-- Indexes added since the first release
+CREATE INDEX IF NOT EXISTS idx_indexing_jobs_started_at ON indexing_jobs(started_at);
+CREATE INDEX IF NOT EXISTS idx_query_stats_buckets_start ON query_stats_buckets(granularity, bucket_start);
+
+COMMIT;
\ No newline at end of file
@@ -7,7 +7,7 @@ function SearchResults({ results, onPageChange, currentPage }) {
     return null;
   }
 
-  const { results: searchResults, totalResults, searchTimeMs, query, pageSize } = results;
+  const { results: searchResults, totalResults, totalResultsRelation, searchTimeMs, query, pageSize } = results;
   const totalPages = Math.ceil(totalResults / pageSize);
 
   const handlePageClick = (page) => {
@@ -118,7 +118,9 @@ function SearchResults({ results, onPageChange, currentPage }) {
               Search Results for "{query}"
             </h5>
             <p className="text-muted mb-0">
-              About {totalResults} results ({searchTimeMs}ms)
+              {totalResultsRelation === 'gte'
+                ? `More than ${totalResults.toLocaleString()} results`
+                : `About ${totalResults} results`} ({searchTimeMs}ms)
             </p>
           </div>
           {results.suggestions && results.suggestions.length > 0 && (